@@ -7,7 +7,7 @@ import at.htl.ecotrack.scoring.domain.PointsLedgerRepository;
 import at.htl.ecotrack.shared.model.Level;
 import at.htl.ecotrack.shared.model.Role;
 import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
-import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -34,30 +34,30 @@ public class EcoUserController {
 
     @GetMapping("/me")
     public EcoUserProfileResponse me(@AuthenticationPrincipal CurrentUser currentUser) {
-        EcoUserProfile profile = profileService.getByUserId(currentUser.userId());
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
         return toResponse(profile, currentUser.role());
     }
 
     @GetMapping("/{ecoUserId}")
-    public EcoUserProfileResponse byId(@PathVariable UUID ecoUserId) {
-        EcoUserProfile profile = profileService.getByEcoUserId(ecoUserId);
-        Role role = appUserRepository.findById(profile.getUserId())
+    public EcoUserProfileResponse byId(@PathVariable("ecoUserId") UUID ecoUserId) {
+        EcoUserProfileSnapshot profile = profileService.getByEcoUserId(ecoUserId);
+        Role role = appUserRepository.findById(profile.userId())
                 .map(user -> user.getRole())
                 .orElse(Role.SCHUELER);
         return toResponse(profile, role);
     }
 
-    private EcoUserProfileResponse toResponse(EcoUserProfile profile, Role role) {
-        PointsLedger ledger = pointsLedgerRepository.findById(profile.getEcoUserId()).orElse(null);
+    private EcoUserProfileResponse toResponse(EcoUserProfileSnapshot profile, Role role) {
+        PointsLedger ledger = pointsLedgerRepository.findById(profile.ecoUserId()).orElse(null);
         int points = ledger == null ? 0 : ledger.getTotalPoints();
         return new EcoUserProfileResponse(
-                profile.getEcoUserId(),
-                new Name(profile.getFirstName(), profile.getLastName(), profile.getDisplayName()),
-                profile.getEmail(),
-                profile.getClassId(),
-                profile.getClassName(),
-                profile.getSchoolId(),
-                profile.getSchoolName(),
+                profile.ecoUserId(),
+                new Name(profile.firstName(), profile.lastName(), profile.displayName()),
+                profile.email(),
+                profile.classId(),
+                profile.className(),
+                profile.schoolId(),
+                profile.schoolName(),
                 points,
                 toLevel(points),
                 role
@@ -4,6 +4,7 @@ import at.htl.ecotrack.shared.error.ApiException;
 import at.htl.ecotrack.shared.error.ErrorResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -37,6 +38,13 @@ public class ApiExceptionHandler {
                 .body(new ErrorResponse("VALIDATION_ERROR", message, OffsetDateTime.now()));
     }
 
+    @ExceptionHandler(AccessDeniedException.class)
+    ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.FORBIDDEN)
+                .body(new ErrorResponse("FORBIDDEN", "Keine Berechtigung", OffsetDateTime.now()));
+    }
+
     @ExceptionHandler(Exception.class)
     ResponseEntity<ErrorResponse> handleUnknown(Exception ex) {
         return ResponseEntity
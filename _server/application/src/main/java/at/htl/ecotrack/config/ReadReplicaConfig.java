@@ -0,0 +1,62 @@
+package at.htl.ecotrack.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Lese-Replikat: Transaktionen mit {@code readOnly = true} (Leaderboards, Dashboards, Verlauf)
+ * laufen über einen eigenen Pool gegen das Replikat, alles andere gegen die Primär-DB.
+ * Nur aktiv, wenn {@code ecotrack.datasource.replica.jdbc-url} gesetzt ist.
+ */
+@Configuration
+@ConditionalOnExpression("!'${ecotrack.datasource.replica.jdbc-url:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("ecotrack.datasource.replica")
+    HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    ReadYourWritesTracker readYourWritesTracker(
+            @Value("${ecotrack.datasource.read-your-writes-window:10s}") Duration window) {
+        return new ReadYourWritesTracker(window);
+    }
+
+    /**
+     * Die Verbindung wird erst beim ersten Statement geholt; dann ist bekannt, ob die
+     * laufende Transaktion read-only ist.
+     */
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                          @Qualifier("replicaDataSource") DataSource replica,
+                          ReadYourWritesTracker tracker) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, tracker);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
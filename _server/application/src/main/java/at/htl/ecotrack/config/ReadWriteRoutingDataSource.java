@@ -0,0 +1,61 @@
+package at.htl.ecotrack.config;
+
+import at.htl.ecotrack.shared.security.CurrentUser;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Wählt pro Verbindung Primär-DB oder Replikat.
+ *
+ * <p>
+ * Read-only-Transaktionen gehen an das Replikat, außer der angemeldete Nutzer hat gerade selbst
+ * geschrieben (siehe {@link ReadYourWritesTracker}). Schreibende Transaktionen eines angemeldeten
+ * Nutzers starten nach dem Commit dieses Zeitfenster.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReadYourWritesTracker tracker;
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        UUID userId = currentUserId();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return userId != null && tracker.isSticky(userId) ? Target.PRIMARY : Target.REPLICA;
+        }
+        if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tracker.markWritten(userId);
+                }
+            });
+        }
+        return Target.PRIMARY;
+    }
+
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CurrentUser currentUser) {
+            return currentUser.userId();
+        }
+        return null;
+    }
+}
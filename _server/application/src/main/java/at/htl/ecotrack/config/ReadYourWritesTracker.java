@@ -0,0 +1,43 @@
+package at.htl.ecotrack.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merkt sich, wer zuletzt geschrieben hat. Innerhalb des Zeitfensters liest dieser Nutzer
+ * von der Primär-DB, damit z.B. eine gerade erfasste Aktivität sofort im Verlauf steht,
+ * auch wenn das Replikat noch nachhinkt.
+ */
+public class ReadYourWritesTracker {
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final Map<UUID, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void markWritten(UUID userId) {
+        long now = System.nanoTime();
+        stickyUntil.put(userId, now + windowNanos);
+        if (stickyUntil.size() > CLEANUP_THRESHOLD) {
+            stickyUntil.values().removeIf(deadline -> deadline - now <= 0);
+        }
+    }
+
+    public boolean isSticky(UUID userId) {
+        Long deadline = stickyUntil.get(userId);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - System.nanoTime() > 0) {
+            return true;
+        }
+        stickyUntil.remove(userId, deadline);
+        return false;
+    }
+}
@@ -0,0 +1,12 @@
+package at.htl.ecotrack.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Aktiviert {@code @Scheduled}-Jobs der Module (z.B. Archivierung abgeschlossener Schuljahre).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,21 @@
+-- V10: Fortschritt pro Challenge als Projektion
+-- Wird aus den ActivityRecorded-Events fortgeschrieben; der Fortschritt ist damit ein Lookup per
+-- Primärschlüssel statt einer Summe über alle Aktivitäten der Klasse im Challenge-Zeitraum.
+
+create table if not exists challenge_progress (
+    challenge_id uuid primary key references challenges(challenge_id) on delete cascade,
+    points bigint not null default 0,
+    activity_count bigint not null default 0,
+    updated_at timestamp with time zone not null
+);
+
+-- Backfill; noch offene Events zählt die Projektion selbst
+insert into challenge_progress(challenge_id, points, activity_count, updated_at)
+select c.challenge_id, coalesce(sum(a.points), 0), count(a.activity_entry_id), current_timestamp
+from challenges c
+left join eco_user_profiles p on p.class_id = c.class_id
+left join activity_entries a on a.eco_user_id = p.eco_user_id
+    and a.activity_date between c.start_date and c.end_date
+    and not exists (select 1 from activity_events e
+                    where e.activity_entry_id = a.activity_entry_id and e.processed_at is null)
+group by c.challenge_id;
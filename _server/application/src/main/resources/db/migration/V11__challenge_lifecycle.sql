@@ -0,0 +1,5 @@
+-- V11: Persistierter Challenge-Lebenszyklus
+-- Der Status wird vom Lifecycle-Job an der Tagesgrenze fortgeschrieben statt bei jedem Lesen
+-- berechnet. Beim Schließen wird der Endstand in final_value eingefroren.
+
+alter table challenges add column if not exists final_value double precision;
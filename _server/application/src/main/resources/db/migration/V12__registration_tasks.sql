@@ -0,0 +1,18 @@
+-- V12: Transaktionale Outbox für nachgelagerte Registrierungsschritte
+-- Rollenzuweisung und Verifikations-E-Mail laufen nicht mehr im Request, sondern werden mit dem
+-- Benutzerprofil committet und im Hintergrund mit Retries gegen Keycloak ausgeführt.
+
+create table if not exists registration_tasks (
+    task_id uuid primary key,
+    external_user_id uuid not null,
+    task_type varchar(40) not null,
+    role varchar(30),
+    status varchar(20) not null,
+    attempts integer not null default 0,
+    next_attempt_at timestamp with time zone not null,
+    created_at timestamp with time zone not null,
+    completed_at timestamp with time zone,
+    last_error varchar(500)
+);
+
+create index if not exists idx_registration_tasks_due on registration_tasks(status, next_attempt_at);
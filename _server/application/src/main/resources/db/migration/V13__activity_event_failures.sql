@@ -0,0 +1,9 @@
+-- V13: Fehlerbehandlung für activity_events
+-- Scheitert ein Batch, stellt der Dispatcher die Events einzeln zu. Ein Event, das auch allein
+-- scheitert, zählt attempts hoch; nach max-attempts wird es mit failed_at geparkt und vom Sweeper
+-- nicht mehr aufgenommen. Parkende Events bleiben offen (processed_at null) und zählen damit auch
+-- bei Neuberechnungen nicht; nach einer Korrektur genügt "update ... set failed_at = null".
+
+alter table activity_events add column if not exists attempts integer not null default 0;
+alter table activity_events add column if not exists last_error varchar(500);
+alter table activity_events add column if not exists failed_at timestamp with time zone;
@@ -0,0 +1,6 @@
+-- V14: Veraltete Verdichtungen
+-- Buchungen, Batch-Sync und Import markieren ein bereits verdichtetes Schuljahr in ihrer Transaktion
+-- als stale. Statistiken lesen ab dem ersten veralteten Jahr wieder live aus activity_entries, bis
+-- der Wartungsjob (bzw. das Ende eines Imports) das Jahr neu verdichtet und die Markierung entfernt.
+
+alter table activity_year_rollups add column if not exists stale boolean not null default false;
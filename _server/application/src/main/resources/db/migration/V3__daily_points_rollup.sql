@@ -0,0 +1,15 @@
+-- V3: Tages-Rollup der Punkte pro EcoUser
+-- Wochen-/Monatsranglisten summieren nur noch wenige Tages-Buckets statt aller Aktivitäten.
+
+create table if not exists daily_points (
+    eco_user_id uuid not null,
+    activity_date date not null,
+    points integer not null default 0,
+    primary key (eco_user_id, activity_date)
+);
+
+-- Backfill aus den bestehenden Aktivitäten
+insert into daily_points(eco_user_id, activity_date, points)
+select eco_user_id, activity_date, sum(points)
+from activity_entries
+group by eco_user_id, activity_date;
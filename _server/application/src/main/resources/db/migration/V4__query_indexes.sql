@@ -0,0 +1,30 @@
+-- V4: Indizes für die Finder-Methoden der Repositories
+-- Die Spaltenreihenfolge folgt Filter und Sortierung der Abfragen: Treffer werden im Index gefunden und
+-- bereits sortiert gelesen. Die Zeilen selbst (select *) kommen weiterhin aus der Tabelle.
+
+-- ActivityEntryRepository.findByEcoUserIdOrderByTimestampDesc (Verlauf)
+create index if not exists idx_activity_entries_user_timestamp
+    on activity_entries (eco_user_id, timestamp desc);
+
+-- ActivityEntryRepository.findByEcoUserIdAndCategoryOrderByTimestampDesc (Verlauf mit Kategorie-Filter)
+create index if not exists idx_activity_entries_user_category_timestamp
+    on activity_entries (eco_user_id, category, timestamp desc);
+
+-- Duplikaterkennung (5-Minuten-Fenster) in ScoringService.createActivity
+create index if not exists idx_activity_entries_duplicate_check
+    on activity_entries (eco_user_id, action_definition_id, quantity, activity_date, timestamp desc);
+
+-- Summen/Zählungen pro Zeitraum (Dashboard, Challenge-Fortschritt)
+create index if not exists idx_activity_entries_user_date
+    on activity_entries (eco_user_id, activity_date, points);
+
+-- ChallengeRepository.findByClassId / findByClassIdAndStatus / findByClassIdAndTitleIgnoreCase
+create index if not exists idx_challenges_class_status
+    on challenges (class_id, status);
+
+-- EcoUserProfileRepository.findByClassId / findBySchoolId (Ranglisten, Dashboard)
+create index if not exists idx_eco_user_profiles_class
+    on eco_user_profiles (class_id);
+
+create index if not exists idx_eco_user_profiles_school
+    on eco_user_profiles (school_id);
@@ -0,0 +1,13 @@
+-- V5: Verlauf-Indizes um activity_entry_id erweitern
+-- Die Keyset-Pagination (/api/activities/feed) sortiert nach (timestamp, activity_entry_id) und
+-- sucht mit (timestamp, activity_entry_id) < (?, ?) ab dem Cursor direkt im Index. Die Indizes
+-- behalten ihre Namen und decken weiterhin die Offset-Pagination (/api/activities) ab.
+
+drop index if exists idx_activity_entries_user_timestamp;
+create index if not exists idx_activity_entries_user_timestamp
+    on activity_entries (eco_user_id, timestamp desc, activity_entry_id desc);
+
+drop index if exists idx_activity_entries_user_category_timestamp;
+create index if not exists idx_activity_entries_user_category_timestamp
+    on activity_entries (eco_user_id, category, timestamp desc, activity_entry_id desc);
+
@@ -0,0 +1,11 @@
+-- V6: Idempotency-Keys für POST /api/activities
+-- Ein Schlüssel gilt pro EcoUser; der Primärschlüssel verhindert doppelte Buchungen auch bei
+-- gleichzeitigen Retries.
+
+create table if not exists activity_idempotency_keys (
+    eco_user_id uuid not null,
+    idempotency_key varchar(100) not null,
+    activity_entry_id uuid not null,
+    created_at timestamp with time zone not null,
+    primary key (eco_user_id, idempotency_key)
+);
@@ -0,0 +1,26 @@
+-- V8: Verdichtete Aktivitäten abgeschlossener Schuljahre
+-- Pro Schuljahr, EcoUser und Aktion (und damit Kategorie) eine Zeile. TOTAL-Auswertungen lesen
+-- abgeschlossene Schuljahre aus dieser Tabelle und nur das laufende Schuljahr aus activity_entries.
+
+create table if not exists activity_year_summaries (
+    school_year_start date not null,
+    eco_user_id uuid not null,
+    action_definition_id uuid not null,
+    action_name varchar(255) not null,
+    category varchar(40) not null,
+    activity_count bigint not null,
+    points bigint not null,
+    quantity double precision not null,
+    primary key (school_year_start, eco_user_id, action_definition_id)
+);
+
+create index if not exists idx_activity_year_summaries_user
+    on activity_year_summaries (eco_user_id, school_year_start);
+
+-- Ein Eintrag pro verdichtetem Schuljahr; entry_count erkennt nachträglich importierte Einträge.
+create table if not exists activity_year_rollups (
+    school_year_start date primary key,
+    school_year_end date not null,
+    entry_count bigint not null,
+    rolled_up_at timestamp with time zone not null
+);
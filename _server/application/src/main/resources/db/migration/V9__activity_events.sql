@@ -0,0 +1,17 @@
+-- V9: Durable Outbox für ActivityRecorded-Events
+-- Wird in derselben Transaktion wie die Aktivität geschrieben. Projektionen (z.B. daily_points)
+-- werden asynchron nachgezogen; processed_at markiert verarbeitete Events, offene werden nach
+-- einem Absturz vom Sweeper erneut zugestellt.
+
+create table if not exists activity_events (
+    activity_entry_id uuid primary key,
+    eco_user_id uuid not null,
+    action_definition_id uuid not null,
+    category varchar(40) not null,
+    points integer not null,
+    activity_date date not null,
+    occurred_at timestamp with time zone not null,
+    processed_at timestamp with time zone
+);
+
+create index if not exists idx_activity_events_pending on activity_events(processed_at, occurred_at);
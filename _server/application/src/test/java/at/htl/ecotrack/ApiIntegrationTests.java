@@ -4,16 +4,31 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,8 +37,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -32,11 +49,24 @@ import at.htl.ecotrack.TestJwtConfig.TestJwtHelper;
 import at.htl.ecotrack.administration.security.KeycloakAdminService;
 import at.htl.ecotrack.administration.security.KeycloakTokenService;
 import at.htl.ecotrack.administration.security.KeycloakTokenService.KeycloakTokenResponse;
+import at.htl.ecotrack.challenge.application.ChallengeLifecycleJob;
+import at.htl.ecotrack.scoring.application.ActivityEventDispatcher;
+import at.htl.ecotrack.scoring.application.ActivityArchiveJob;
+import at.htl.ecotrack.scoring.application.ScoringDtos;
+import at.htl.ecotrack.scoring.application.ScoringService;
+import at.htl.ecotrack.scoring.domain.ActivityEntry;
+import at.htl.ecotrack.scoring.domain.ActivityEntryBatchWriter;
+import at.htl.ecotrack.shared.model.ActivitySource;
+import at.htl.ecotrack.shared.model.Category;
 import at.htl.ecotrack.shared.model.Role;
+import at.htl.ecotrack.shared.model.Unit;
+import at.htl.ecotrack.shared.security.CurrentUser;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
+import jakarta.persistence.EntityManagerFactory;
 
 @SpringBootTest
 @AutoConfigureMockMvc
-@Import(TestJwtConfig.class)
+@Import({ TestJwtConfig.class, TestActivityFixture.class })
 class ApiIntegrationTests {
 
         @Autowired
@@ -48,6 +78,30 @@ class ApiIntegrationTests {
         @Autowired
         private TestJwtHelper testJwtHelper;
 
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private ActivityEntryBatchWriter activityEntryBatchWriter;
+
+        @Autowired
+        private ActivityArchiveJob activityArchiveJob;
+
+        @Autowired
+        private ChallengeLifecycleJob challengeLifecycleJob;
+
+        @Autowired
+        private ActivityEventDispatcher eventDispatcher;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private ScoringService scoringService;
+
+        @Autowired
+        private TestActivityFixture fixture;
+
         @MockBean
         private KeycloakAdminService keycloakAdminService;
 
@@ -180,6 +234,55 @@ class ApiIntegrationTests {
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$.totalPoints").value(20))
                                 .andExpect(jsonPath("$.currentLevel").value("SETZLING"));
+
+                mockMvc.perform(get("/api/leaderboard/class/window")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.participants").value(1))
+                                .andExpect(jsonPath("$.top[0].points").value(20))
+                                .andExpect(jsonPath("$.aroundMe[0].rank").value(1))
+                                .andExpect(jsonPath("$.aroundMe[0].isCurrentUser").value(true));
+        }
+
+        @Test
+        void weekAndMonthCoverSevenAndThirtyDaysIncludingToday() throws Exception {
+                String adminToken = registerAndExtractToken("admin-m@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "6MHIT");
+                String teacherToken = registerAndExtractToken("teacher-m@ecotrack.test", "LEHRER", null);
+                String studentToken = registerAndExtractToken("student-m@ecotrack.test", "SCHUELER", classId);
+
+                LocalDate today = LocalDate.now();
+                // 10 Punkte pro Menge: Tag -6 und -29 liegen noch im Zeitraum, Tag -7 und -30 nicht mehr.
+                Map<Integer, Integer> quantityByDaysAgo = Map.of(6, 1, 7, 2, 29, 3, 30, 4);
+                for (Map.Entry<Integer, Integer> booking : quantityByDaysAgo.entrySet()) {
+                        mockMvc.perform(post("/api/activities")
+                                        .header("Authorization", "Bearer " + studentToken)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                        { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": %d, "date": "%s" }
+                                                        """.formatted(booking.getValue(), today.minusDays(booking.getKey()))))
+                                        .andExpect(status().isCreated());
+                }
+                awaitActivityEvents(classId);
+
+                mockMvc.perform(get("/api/leaderboard/class").param("period", "WEEK")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.rows[0].points").value(10));
+                mockMvc.perform(get("/api/leaderboard/class").param("period", "MONTH")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.rows[0].points").value(60));
+                mockMvc.perform(get("/api/dashboard/class/" + classId).param("period", "WEEK")
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(10))
+                                .andExpect(jsonPath("$.totalActivities").value(1));
+                mockMvc.perform(get("/api/dashboard/class/" + classId).param("period", "MONTH")
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(60))
+                                .andExpect(jsonPath("$.totalActivities").value(3));
         }
 
         @Test
@@ -237,6 +340,881 @@ class ApiIntegrationTests {
                                 .andExpect(jsonPath("$.goal.unit").value("POINTS"));
         }
 
+        @Test
+        void classDashboardQueryCountDoesNotGrowWithClassSize() throws Exception {
+                String adminToken = registerAndExtractToken("admin-c@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "3CHIT");
+                String teacherToken = registerAndExtractToken("teacher-c@ecotrack.test", "LEHRER", null);
+
+                String challengePayload = """
+                                {
+                                  "title": "Laufende Challenge %s",
+                                  "goalValue": 500,
+                                  "goalUnit": "POINTS",
+                                  "startDate": "%s",
+                                  "endDate": "%s",
+                                  "classId": "%s"
+                                }
+                                """.formatted(UUID.randomUUID(), LocalDate.now().minusDays(1), LocalDate.now().plusDays(10),
+                                classId);
+                mockMvc.perform(post("/api/challenges")
+                                .header("Authorization", "Bearer " + teacherToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(challengePayload))
+                                .andExpect(status().isCreated());
+
+                registerStudentsWithActivity(classId, "small", 2);
+                long smallClassStatements = countDashboardStatements(teacherToken, classId);
+
+                registerStudentsWithActivity(classId, "large", 6);
+                long largeClassStatements = countDashboardStatements(teacherToken, classId);
+
+                mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalStudents").value(8))
+                                .andExpect(jsonPath("$.totalPoints").value(80))
+                                .andExpect(jsonPath("$.activeChallenges.length()").value(1))
+                                .andExpect(jsonPath("$.activeChallenges[0].progressPercentage").value(16.0))
+                                .andExpect(jsonPath("$.topStudents.length()").value(5));
+
+                assertThat(largeClassStatements).isEqualTo(smallClassStatements);
+        }
+
+        @Test
+        void catalogIsRevalidatedByEtagAndReloadedAfterAdminWrite() throws Exception {
+                String adminToken = registerAndExtractToken("admin-d@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "4DHIT");
+                String studentToken = registerAndExtractToken("student-d@ecotrack.test", "SCHUELER", classId);
+
+                MvcResult first = mockMvc.perform(get("/api/activities/catalog")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists("ETag"))
+                                .andReturn();
+                String etag = first.getResponse().getHeader("ETag");
+
+                mockMvc.perform(get("/api/activities/catalog")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+
+                String actionId = UUID.randomUUID().toString();
+                String actionPayload = """
+                                {
+                                  "name": "Katalog-Test",
+                                  "category": "RECYCLING",
+                                  "unit": "STUECK",
+                                  "basePoints": 3,
+                                  "active": true
+                                }
+                                """;
+
+                mockMvc.perform(put("/api/activities/catalog/" + actionId)
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(actionPayload))
+                                .andExpect(status().isForbidden());
+
+                mockMvc.perform(put("/api/activities/catalog/" + actionId)
+                                .header("Authorization", "Bearer " + adminToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(actionPayload))
+                                .andExpect(status().isOk());
+
+                MvcResult reloaded = mockMvc.perform(get("/api/activities/catalog")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andReturn();
+                assertThat(reloaded.getResponse().getHeader("ETag")).isNotEqualTo(etag);
+                assertThat(reloaded.getResponse().getContentAsString()).contains(actionId);
+        }
+
+        @Test
+        void batchSubmissionReportsResultPerItem() throws Exception {
+                String adminToken = registerAndExtractToken("admin-e@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "5EHIT");
+                String studentToken = registerAndExtractToken("student-e@ecotrack.test", "SCHUELER", classId);
+
+                String batchPayload = """
+                                {
+                                  "activities": [
+                                    { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 1 },
+                                    { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 3 },
+                                    { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 1 },
+                                    { "actionDefinitionId": "%s", "quantity": 2 },
+                                    { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 2, "date": "%s" },
+                                    { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 4, "date": "%s" }
+                                  ]
+                                }
+                                """.formatted(UUID.randomUUID(), LocalDate.now().minusDays(1), LocalDate.now().plusDays(1));
+
+                mockMvc.perform(post("/api/activities/batch")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(batchPayload))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.created").value(3))
+                                .andExpect(jsonPath("$.rejected").value(3))
+                                .andExpect(jsonPath("$.results[0].created").value(true))
+                                .andExpect(jsonPath("$.results[0].activity.points").value(10))
+                                .andExpect(jsonPath("$.results[2].code").value("DUPLICATE_ACTIVITY"))
+                                .andExpect(jsonPath("$.results[3].code").value("ACTION_NOT_FOUND"))
+                                .andExpect(jsonPath("$.results[4].created").value(true))
+                                .andExpect(jsonPath("$.results[5].code").value("INVALID_ACTIVITY_DATE"));
+
+                mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                                { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 4, "date": "%s" }
+                                                """.formatted(LocalDate.now().plusMonths(14))))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.code").value("INVALID_ACTIVITY_DATE"));
+
+                mockMvc.perform(get("/api/progress/points")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(60));
+
+                // Wiederholter Sync derselben Einträge wird vollständig als Duplikat erkannt.
+                mockMvc.perform(post("/api/activities/batch")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(batchPayload))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.created").value(0));
+
+                mockMvc.perform(get("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalElements").value(3));
+        }
+
+        @Test
+        void adminImportsHistoricalActivitiesFromCsv() throws Exception {
+                String adminToken = registerAndExtractToken("admin-f@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "5FHIT");
+                String studentToken = registerAndExtractToken("student-f@ecotrack.test", "SCHUELER", classId);
+
+                // Felder in Anführungszeichen dürfen Kommas enthalten; offene Anführungszeichen und
+                // Daten in der Zukunft werden abgelehnt.
+                String csv = """
+                                email,actionDefinitionId,quantity,date,note
+                                Student-F@ecotrack.test,11111111-1111-1111-1111-111111111111,2,%s,"Hin, zurück"
+                                student-f@ecotrack.test,11111111-1111-1111-1111-111111111111,1,%s,
+                                unknown@ecotrack.test,11111111-1111-1111-1111-111111111111,1,%s,
+                                student-f@ecotrack.test,%s,1,%s,
+                                student-f@ecotrack.test,11111111-1111-1111-1111-111111111111,abc,%s,
+                                "student-f@ecotrack.test",11111111-1111-1111-1111-111111111111,1,%s,"Er sagte ""Danke"" heute"
+                                student-f@ecotrack.test,11111111-1111-1111-1111-111111111111,1,%s,"offen
+                                student-f@ecotrack.test,11111111-1111-1111-1111-111111111111,1,%s,
+                                """.formatted(LocalDate.now().minusDays(30), LocalDate.now().minusDays(29),
+                                LocalDate.now().minusDays(30), UUID.randomUUID(), LocalDate.now().minusDays(30),
+                                LocalDate.now().minusDays(30), LocalDate.now().minusDays(28),
+                                LocalDate.now().minusDays(27), LocalDate.now().plusMonths(14));
+
+                mockMvc.perform(post("/api/admin/imports/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType("text/csv")
+                                .content(csv))
+                                .andExpect(status().isForbidden());
+
+                MvcResult started = mockMvc.perform(post("/api/admin/imports/activities")
+                                .header("Authorization", "Bearer " + adminToken)
+                                .contentType("text/csv")
+                                .content(csv))
+                                .andExpect(status().isAccepted())
+                                .andExpect(header().exists("Location"))
+                                .andReturn();
+                String importId = read(started, "importId");
+
+                JsonNode status = null;
+                for (int attempt = 0; attempt < 100; attempt++) {
+                        MvcResult polled = mockMvc.perform(get("/api/admin/imports/activities/" + importId)
+                                        .header("Authorization", "Bearer " + adminToken))
+                                        .andExpect(status().isOk())
+                                        .andReturn();
+                        status = objectMapper.readTree(polled.getResponse().getContentAsString());
+                        String state = status.get("state").asText();
+                        if ("COMPLETED".equals(state) || "FAILED".equals(state)) {
+                                break;
+                        }
+                        Thread.sleep(50);
+                }
+
+                assertThat(status.get("state").asText()).isEqualTo("COMPLETED");
+                assertThat(status.get("processedRows").asLong()).isEqualTo(8);
+                assertThat(status.get("importedRows").asLong()).isEqualTo(3);
+                assertThat(status.get("rejectedRows").asLong()).isEqualTo(5);
+                assertThat(status.get("errors")).hasSize(5);
+
+                mockMvc.perform(get("/api/progress/points")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(40));
+
+                mockMvc.perform(get("/api/admin/imports/activities/" + UUID.randomUUID())
+                                .header("Authorization", "Bearer " + adminToken))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void activityHistoryAndUserListAreStreamedAsCsvAndNdjson() throws Exception {
+                String adminToken = registerAndExtractToken("admin-g@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "5GHIT");
+                String studentToken = registerAndExtractToken("student-g@ecotrack.test", "SCHUELER", classId);
+                String teacherToken = registerAndExtractToken("teacher-g@ecotrack.test", "LEHRER", null);
+
+                mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                                { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 2 }
+                                                """))
+                                .andExpect(status().isCreated());
+                mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                                { "actionDefinitionId": "22222222-2222-2222-2222-222222222222", "quantity": 1 }
+                                                """))
+                                .andExpect(status().isCreated());
+
+                String csv = stream(get("/api/activities/export")
+                                .header("Authorization", "Bearer " + studentToken));
+                assertThat(csv.split("\r\n")).hasSize(3);
+                assertThat(csv).startsWith("activityEntryId,activityDate,timestamp,actionName,category,quantity,unit,points,source\r\n");
+                assertThat(csv).contains(",Fahrrad statt Auto,MOBILITAET,2.0,KM,20,APP");
+
+                String ndjson = stream(get("/api/activities/export/class/" + classId)
+                                .param("format", "NDJSON")
+                                .header("Authorization", "Bearer " + teacherToken));
+                String[] lines = ndjson.split("\n");
+                assertThat(lines).hasSize(2);
+                for (String line : lines) {
+                        JsonNode row = objectMapper.readTree(line);
+                        assertThat(row.get("email").asText()).isEqualTo("student-g@ecotrack.test");
+                }
+
+                mockMvc.perform(get("/api/activities/export/class/" + classId)
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isForbidden());
+
+                String users = stream(get("/api/admin/users/export")
+                                .param("role", "SCHUELER")
+                                .header("Authorization", "Bearer " + adminToken));
+                assertThat(users).contains("student-g@ecotrack.test,SCHUELER");
+                assertThat(users).doesNotContain("teacher-g@ecotrack.test");
+        }
+
+        @Test
+        void activityFeedPagesByCursorWithoutGapsOrDuplicates() throws Exception {
+                String adminToken = registerAndExtractToken("admin-h@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "5HHIT");
+                String studentToken = registerAndExtractToken("student-h@ecotrack.test", "SCHUELER", classId);
+
+                for (int i = 1; i <= 5; i++) {
+                        mockMvc.perform(post("/api/activities")
+                                        .header("Authorization", "Bearer " + studentToken)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                        { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": %d }
+                                                        """.formatted(i)))
+                                        .andExpect(status().isCreated());
+                }
+
+                List<String> seen = new ArrayList<>();
+                String cursor = null;
+                int pages = 0;
+                do {
+                        MockHttpServletRequestBuilder request = get("/api/activities/feed")
+                                        .param("size", "2")
+                                        .header("Authorization", "Bearer " + studentToken);
+                        if (cursor != null) {
+                                request.param("cursor", cursor);
+                        }
+                        MvcResult result = mockMvc.perform(request)
+                                        .andExpect(status().isOk())
+                                        .andReturn();
+                        JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+                        page.get("content").forEach(entry -> seen.add(entry.get("activityEntryId").asText()));
+                        cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+                        pages++;
+                } while (cursor != null);
+
+                assertThat(pages).isEqualTo(3);
+                assertThat(seen).hasSize(5).doesNotHaveDuplicates();
+
+                mockMvc.perform(get("/api/activities/feed")
+                                .param("cursor", "kein-cursor")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.code").value("INVALID_CURSOR"));
+        }
+
+        @Test
+        void idempotencyKeyReplaysOriginalActivity() throws Exception {
+                String adminToken = registerAndExtractToken("admin-i@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "5IHIT");
+                String studentToken = registerAndExtractToken("student-i@ecotrack.test", "SCHUELER", classId);
+                String body = """
+                                { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 2 }
+                                """;
+
+                MvcResult first = mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .header("Idempotency-Key", "sync-42")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                                .andExpect(status().isCreated())
+                                .andReturn();
+
+                // Die Wiederholung kommt aus dem Cache: keine Session, kein Statement.
+                awaitActivityEvents(classId);
+                Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+                statistics.clear();
+                mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .header("Idempotency-Key", "sync-42")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                                .andExpect(status().isCreated())
+                                .andExpect(jsonPath("$.activityEntryId").value(read(first, "activityEntryId")));
+                assertThat(statistics.getSessionOpenCount()).isZero();
+                assertThat(statistics.getPrepareStatementCount()).isZero();
+
+                mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .header("Idempotency-Key", "sync-42")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                                { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 5 }
+                                                """))
+                                .andExpect(status().isUnprocessableEntity())
+                                .andExpect(jsonPath("$.code").value("IDEMPOTENCY_KEY_REUSED"));
+
+                // Ohne Schlüssel greift weiterhin die 5-Minuten-Duplikatprüfung.
+                mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + studentToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                                .andExpect(status().isConflict());
+
+                mockMvc.perform(get("/api/progress/points")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(20));
+        }
+
+        @Test
+        void finishedSchoolYearsAreRolledUpWithoutChangingTheDashboard() throws Exception {
+                String adminToken = registerAndExtractToken("admin-j@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "4JHIT");
+                String teacherToken = registerAndExtractToken("teacher-j@ecotrack.test", "LEHRER", null);
+                registerStudentsWithActivity(classId, "archive", 1);
+
+                JsonNode live = objectMapper.readTree(mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString());
+                UUID ecoUserId = UUID.fromString(live.get("topStudents").get(0).get("ecoUserId").asText());
+
+                LocalDate today = LocalDate.now();
+                activityEntryBatchWriter.insertAll(List.of(
+                                historicalEntry(ecoUserId, "11111111-1111-1111-1111-111111111111", Category.MOBILITAET, 10,
+                                                today.minusYears(3)),
+                                historicalEntry(ecoUserId, "22222222-2222-2222-2222-222222222222", Category.RECYCLING, 5,
+                                                today.minusYears(2))));
+
+                String before = mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(25))
+                                .andExpect(jsonPath("$.totalActivities").value(3))
+                                .andReturn().getResponse().getContentAsString();
+
+                assertThat(activityArchiveJob.rollUpFinishedSchoolYears(today)).isGreaterThanOrEqualTo(2);
+                assertThat(jdbcTemplate.queryForObject(
+                                "select count(*) from activity_year_summaries where eco_user_id = ?", Long.class, ecoUserId))
+                                .isEqualTo(2);
+                assertThat(activityArchiveJob.rollUpFinishedSchoolYears(today)).isZero();
+
+                String after = mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                assertThat(objectMapper.readTree(after)).isEqualTo(objectMapper.readTree(before));
+
+                // Eine Nachbuchung in ein verdichtetes Jahr zählt sofort, ohne das spätere Jahr doppelt zu zählen.
+                String lateToken = registerAndExtractToken("student-j-late@ecotrack.test", "SCHUELER", classId);
+                mockMvc.perform(post("/api/activities")
+                                .header("Authorization", "Bearer " + lateToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                                { "actionDefinitionId": "11111111-1111-1111-1111-111111111111", "quantity": 1, "date": "%s" }
+                                                """.formatted(today.minusYears(3))))
+                                .andExpect(status().isCreated());
+                assertThat(jdbcTemplate.queryForObject(
+                                "select count(*) from activity_year_rollups where stale and ? between school_year_start and school_year_end",
+                                Long.class, today.minusYears(3))).isEqualTo(1);
+                String backdated = mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(35))
+                                .andExpect(jsonPath("$.totalActivities").value(4))
+                                .andExpect(jsonPath("$.activeStudents").value(2))
+                                .andReturn().getResponse().getContentAsString();
+                assertThat(activityArchiveJob.rollUpFinishedSchoolYears(today)).isEqualTo(1);
+                assertThat(jdbcTemplate.queryForObject(
+                                "select count(*) from activity_year_rollups where stale", Long.class)).isZero();
+                assertThat(objectMapper.readTree(mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString()))
+                                .isEqualTo(objectMapper.readTree(backdated));
+
+                // Direkt eingefügte Einträge erkennt der nächste Lauf an der geänderten Anzahl.
+                activityEntryBatchWriter.insertAll(List.of(historicalEntry(ecoUserId,
+                                "11111111-1111-1111-1111-111111111111", Category.MOBILITAET, 10, today.minusYears(3))));
+                assertThat(activityArchiveJob.rollUpFinishedSchoolYears(today)).isEqualTo(1);
+                mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalPoints").value(45))
+                                .andExpect(jsonPath("$.totalActivities").value(5))
+                                .andExpect(jsonPath("$.activeStudents").value(2))
+                                .andExpect(jsonPath("$.topStudents[0].points").value(35));
+        }
+
+        @Test
+        void challengeProgressIsMaintainedIncrementallyAndCanBeRebuilt() throws Exception {
+                String adminToken = registerAndExtractToken("admin-k@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "5KHIT");
+                String teacherToken = registerAndExtractToken("teacher-k@ecotrack.test", "LEHRER", null);
+                registerStudentsWithActivity(classId, "before", 1);
+                awaitActivityEvents(classId);
+
+                String challengePayload = """
+                                {
+                                  "title": "Fortschritt %s",
+                                  "goalValue": 100,
+                                  "goalUnit": "POINTS",
+                                  "startDate": "%s",
+                                  "endDate": "%s",
+                                  "classId": "%s"
+                                }
+                                """.formatted(UUID.randomUUID(), LocalDate.now().minusDays(7), LocalDate.now().plusDays(7),
+                                classId);
+                JsonNode challenge = objectMapper.readTree(mockMvc.perform(post("/api/challenges")
+                                .header("Authorization", "Bearer " + teacherToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(challengePayload))
+                                .andExpect(status().isCreated())
+                                .andReturn().getResponse().getContentAsString());
+                String challengeId = challenge.get("challengeId").asText();
+
+                // Aktivitäten vor dem Anlegen zählen mit, neue kommen über die Projektion dazu.
+                registerStudentsWithActivity(classId, "after", 2);
+                awaitActivityEvents(classId);
+                mockMvc.perform(get("/api/challenges/" + challengeId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.progress.currentValue").value(30.0))
+                                .andExpect(jsonPath("$.progress.percentage").value(30.0))
+                                .andExpect(jsonPath("$.participants").value(3));
+
+                JsonNode dashboard = objectMapper.readTree(mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andReturn().getResponse().getContentAsString());
+                UUID ecoUserId = UUID.fromString(dashboard.get("topStudents").get(0).get("ecoUserId").asText());
+                activityEntryBatchWriter.insertAll(List.of(historicalEntry(ecoUserId,
+                                "11111111-1111-1111-1111-111111111111", Category.MOBILITAET, 10, LocalDate.now().minusDays(3))));
+                mockMvc.perform(get("/api/challenges/" + challengeId + "/progress")
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(jsonPath("$.currentValue").value(30.0));
+
+                String studentToken = registerAndExtractToken("student-k-" + UUID.randomUUID() + "@ecotrack.test",
+                                "SCHUELER", classId);
+                mockMvc.perform(post("/api/challenges/" + challengeId + "/progress/rebuild")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isForbidden());
+                mockMvc.perform(post("/api/challenges/" + challengeId + "/progress/rebuild")
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.currentValue").value(40.0));
+
+                // Fehlt die Zeile (wie zwischen Löschen und Neuberechnen), legt die Projektion sie an.
+                jdbcTemplate.update("delete from challenge_progress where challenge_id = ?", UUID.fromString(challengeId));
+                registerStudentsWithActivity(classId, "gap", 1);
+                awaitActivityEvents(classId);
+                mockMvc.perform(get("/api/challenges/" + challengeId + "/progress")
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(jsonPath("$.currentValue").value(10.0));
+        }
+
+        @Test
+        void lifecycleJobTransitionsChallengesAndFreezesFinalProgress() throws Exception {
+                String adminToken = registerAndExtractToken("admin-l@ecotrack.test", "ADMIN", null);
+                String classId = createClass(adminToken, "6LHIT");
+                String teacherToken = registerAndExtractToken("teacher-l@ecotrack.test", "LEHRER", null);
+                String studentToken = registerAndExtractToken("student-l-" + UUID.randomUUID() + "@ecotrack.test",
+                                "SCHUELER", classId);
+                LocalDate today = LocalDate.now();
+                String ending = createChallenge(teacherToken, classId, today.minusDays(1), today.plusDays(1));
+                String upcoming = createChallenge(teacherToken, classId, today.plusDays(1), today.plusDays(5));
+                registerStudentsWithActivity(classId, "lifecycle", 1);
+                awaitActivityEvents(classId);
+                // Noch nicht zugestellt; muss vor dem Einfrieren in den Endstand eingehen.
+                UUID member = jdbcTemplate.queryForObject(
+                                "select eco_user_id from eco_user_profiles where class_id = ? fetch first 1 rows only",
+                                UUID.class, UUID.fromString(classId));
+                insertPendingEvent(member, today, 7);
+
+                ChallengeLifecycleJob.Transitions transitions = challengeLifecycleJob.transition(today.plusDays(2));
+                assertThat(transitions.activated()).isPositive();
+                assertThat(transitions.closed()).isPositive();
+
+                mockMvc.perform(get("/api/challenges").param("status", "CLOSED")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(1))
+                                .andExpect(jsonPath("$[0].challengeId").value(ending));
+                mockMvc.perform(get("/api/challenges").param("status", "ACTIVE")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(jsonPath("$.length()").value(1))
+                                .andExpect(jsonPath("$[0].challengeId").value(upcoming));
+
+                // Nach dem Schließen zählen weitere Aktivitäten im Zeitraum nicht mehr.
+                registerStudentsWithActivity(classId, "late", 1);
+                awaitActivityEvents(classId);
+                mockMvc.perform(get("/api/challenges/" + ending + "/progress")
+                                .header("Authorization", "Bearer " + studentToken))
+                                .andExpect(jsonPath("$.currentValue").value(17.0));
+                assertThat(jdbcTemplate.queryForObject("select count(*) from challenge_progress where challenge_id = ?",
+                                Long.class, UUID.fromString(ending))).isZero();
+                mockMvc.perform(post("/api/challenges/" + ending + "/progress/rebuild")
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isConflict());
+        }
+
+        @Test
+        void concurrentSubmissionsForOneUserSumExactly() throws Exception {
+                // Viele gleichzeitige Buchungen: exakter Punktestand, keine Optimistic-Lock-Fehler.
+                int submissions = 300;
+                EcoUserProfileSnapshot profile = fixture.createStudent("ledger");
+                CurrentUser currentUser = fixture.currentUser(profile);
+                List<Callable<ScoringDtos.ActivityEntryResponse>> calls = new ArrayList<>();
+                for (int i = 1; i <= submissions; i++) {
+                        // Unterschiedliche Mengen, damit die Duplikatprüfung nicht greift.
+                        ScoringDtos.CreateActivityRequest request = fixture.activity(i);
+                        calls.add(() -> scoringService.createActivity(currentUser, request));
+                }
+                fixture.runConcurrently(32, calls);
+
+                int expected = 10 * submissions * (submissions + 1) / 2;
+                assertThat(scoringService.getMyPoints(currentUser).totalPoints()).isEqualTo(expected);
+                assertThat(jdbcTemplate.queryForObject(
+                                "select version from points_ledgers where eco_user_id = ?", Long.class,
+                                profile.ecoUserId()))
+                                .isEqualTo(submissions);
+                // Die Tagessummen werden asynchron projiziert.
+                fixture.awaitProcessedEvents(profile.ecoUserId());
+                assertThat(fixture.dailyPoints(profile.ecoUserId())).isEqualTo(expected);
+        }
+
+        @Test
+        void concurrentRetriesWithSameIdempotencyKeyBookOnce() throws Exception {
+                EcoUserProfileSnapshot profile = fixture.createStudent("retry");
+                CurrentUser currentUser = fixture.currentUser(profile);
+                ScoringDtos.CreateActivityRequest request = fixture.activity(3);
+                String idempotencyKey = UUID.randomUUID().toString();
+                List<Callable<ScoringDtos.ActivityEntryResponse>> calls = new ArrayList<>();
+                for (int i = 0; i < 32; i++) {
+                        calls.add(() -> scoringService.createActivity(currentUser, request, idempotencyKey));
+                }
+
+                Set<UUID> activityIds = new HashSet<>();
+                fixture.runConcurrently(32, calls).forEach(result -> activityIds.add(result.activityEntryId()));
+                assertThat(activityIds).hasSize(1);
+                assertThat(jdbcTemplate.queryForObject(
+                                "select count(*) from activity_entries where eco_user_id = ?", Integer.class,
+                                profile.ecoUserId()))
+                                .isEqualTo(1);
+                assertThat(scoringService.getMyPoints(currentUser).totalPoints()).isEqualTo(30);
+        }
+
+        @Test
+        void burstOfActivitiesReachesAllSseSubscribersCoalesced() throws Exception {
+                // Jeder Abonnent erhält den Endstand, in deutlich weniger Events als Buchungen.
+                int subscribers = 250;
+                int activeStudents = 3;
+                int submissionsPerStudent = 20;
+                UUID classId = UUID.randomUUID();
+                UUID schoolId = UUID.randomUUID();
+                List<EcoUserProfileSnapshot> students = new ArrayList<>();
+                for (int i = 0; i < subscribers; i++) {
+                        students.add(fixture.createStudent("live", classId, schoolId));
+                }
+
+                List<MvcResult> leaderboardStreams = new ArrayList<>();
+                for (EcoUserProfileSnapshot student : students) {
+                        leaderboardStreams.add(subscribe("/api/leaderboard/class/stream", student));
+                }
+                List<EcoUserProfileSnapshot> active = students.subList(0, activeStudents);
+                List<MvcResult> progressStreams = new ArrayList<>();
+                for (EcoUserProfileSnapshot student : active) {
+                        progressStreams.add(subscribe("/api/progress/stream", student));
+                }
+
+                List<Callable<ScoringDtos.ActivityEntryResponse>> calls = new ArrayList<>();
+                for (EcoUserProfileSnapshot student : active) {
+                        CurrentUser currentUser = fixture.currentUser(student);
+                        for (int i = 1; i <= submissionsPerStudent; i++) {
+                                ScoringDtos.CreateActivityRequest request = fixture.activity(i);
+                                calls.add(() -> scoringService.createActivity(currentUser, request));
+                        }
+                }
+                fixture.runConcurrently(8, calls);
+
+                int expectedPoints = 10 * submissionsPerStudent * (submissionsPerStudent + 1) / 2;
+                Map<UUID, Integer> expected = new HashMap<>();
+                active.forEach(student -> expected.put(student.ecoUserId(), expectedPoints));
+
+                // Rangliste und Fortschritt können in verschiedenen Flush-Runden ankommen.
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (System.currentTimeMillis() < deadline && !(leaderboardStreams.stream()
+                                .allMatch(stream -> latestPoints(stream).equals(expected))
+                                && progressStreams.stream().allMatch(stream -> latestProgress(stream) == expectedPoints))) {
+                        Thread.sleep(50);
+                }
+
+                int totalSubmissions = activeStudents * submissionsPerStudent;
+                for (MvcResult stream : leaderboardStreams) {
+                        assertThat(latestPoints(stream)).isEqualTo(expected);
+                        assertThat(sseEvents(stream, "leaderboard")).hasSize(1);
+                        assertThat(sseEvents(stream, "leaderboard-changes")).hasSizeLessThan(totalSubmissions);
+                }
+                for (MvcResult stream : progressStreams) {
+                        List<JsonNode> progress = sseEvents(stream, "progress");
+                        assertThat(latestProgress(stream)).isEqualTo(expectedPoints);
+                        // Erstes Event ist der Stand beim Verbinden, danach zusammengefasste Änderungen.
+                        assertThat(progress.size() - 1).isBetween(1, submissionsPerStudent - 1);
+                }
+        }
+
+        @Test
+        void recordedActivitiesAreProjectedIntoDailyPoints() throws Exception {
+                EcoUserProfileSnapshot profile = fixture.createStudent("events");
+                CurrentUser currentUser = fixture.currentUser(profile);
+                scoringService.createActivity(currentUser, fixture.activity(2));
+                scoringService.createActivities(currentUser, new ScoringDtos.CreateActivityBatchRequest(List.of(
+                                fixture.activity(3), fixture.activity(4))));
+
+                fixture.awaitProcessedEvents(profile.ecoUserId());
+                assertThat(dailyPoints(profile.ecoUserId(), LocalDate.now())).isEqualTo(90);
+        }
+
+        @Test
+        void pendingActivityEventsAreReplayedExactlyOnceAfterCrash() {
+                UUID ecoUserId = fixture.createStudent("events").ecoUserId();
+                LocalDate day = LocalDate.now().minusDays(3);
+                // Aktivitäten wurden committet, der Prozess ist aber vor der Zustellung abgestürzt.
+                insertPendingEvent(ecoUserId, day, 15);
+                insertPendingEvent(ecoUserId, day, 25);
+
+                eventDispatcher.sweep();
+                assertThat(dailyPoints(ecoUserId, day)).isEqualTo(40);
+                assertThat(fixture.pendingEvents(ecoUserId)).isZero();
+
+                assertThat(eventDispatcher.sweep()).isZero();
+                assertThat(dailyPoints(ecoUserId, day)).isEqualTo(40);
+        }
+
+        @Test
+        void poisonActivityEventDoesNotBlockOthersAndIsParked() {
+                UUID ecoUserId = fixture.createStudent("events").ecoUserId();
+                UUID poisonUserId = fixture.createStudent("poison").ecoUserId();
+                LocalDate day = LocalDate.now().minusDays(3);
+                // Die Tagessumme des zweiten Events läuft über und lässt jeden Batch scheitern, der es enthält.
+                jdbcTemplate.update("insert into daily_points(eco_user_id, activity_date, points) values (?, ?, 1)",
+                                poisonUserId, day);
+                insertPendingEvent(ecoUserId, day, 15);
+                insertPendingEvent(poisonUserId, day, Integer.MAX_VALUE);
+
+                eventDispatcher.sweep();
+                assertThat(dailyPoints(ecoUserId, day)).isEqualTo(15);
+                assertThat(fixture.pendingEvents(ecoUserId)).isZero();
+                assertThat(fixture.pendingEvents(poisonUserId)).isOne();
+
+                for (int attempt = 2; attempt <= 5; attempt++) {
+                        eventDispatcher.sweep();
+                }
+                Map<String, Object> poison = jdbcTemplate.queryForMap(
+                                "select attempts, last_error, failed_at from activity_events where eco_user_id = ?",
+                                poisonUserId);
+                assertThat(poison.get("attempts")).isEqualTo(5);
+                assertThat(poison.get("last_error")).isNotNull();
+                assertThat(poison.get("failed_at")).isNotNull();
+                assertThat(dailyPoints(poisonUserId, day)).isEqualTo(1);
+
+                eventDispatcher.sweep();
+                assertThat(jdbcTemplate.queryForObject("select attempts from activity_events where eco_user_id = ?",
+                                Integer.class, poisonUserId)).isEqualTo(5);
+        }
+
+        private String createChallenge(String teacherToken, String classId, LocalDate startDate, LocalDate endDate)
+                        throws Exception {
+                String payload = """
+                                {
+                                  "title": "Lebenszyklus %s",
+                                  "goalValue": 100,
+                                  "goalUnit": "POINTS",
+                                  "startDate": "%s",
+                                  "endDate": "%s",
+                                  "classId": "%s"
+                                }
+                                """.formatted(UUID.randomUUID(), startDate, endDate, classId);
+                return objectMapper.readTree(mockMvc.perform(post("/api/challenges")
+                                .header("Authorization", "Bearer " + teacherToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(payload))
+                                .andExpect(status().isCreated())
+                                .andReturn().getResponse().getContentAsString()).get("challengeId").asText();
+        }
+
+        private void awaitActivityEvents(String classId) throws InterruptedException {
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (System.currentTimeMillis() < deadline && jdbcTemplate.queryForObject("""
+                                select count(*) from activity_events e
+                                join eco_user_profiles p on p.eco_user_id = e.eco_user_id
+                                where p.class_id = ? and e.processed_at is null
+                                """, Long.class, UUID.fromString(classId)) > 0) {
+                        Thread.sleep(50);
+                }
+        }
+
+        private void insertPendingEvent(UUID ecoUserId, LocalDate day, int points) {
+                jdbcTemplate.update("""
+                                insert into activity_events(activity_entry_id, eco_user_id, action_definition_id, category,
+                                                            points, activity_date, occurred_at)
+                                values (?, ?, ?, 'MOBILITAET', ?, ?, ?)
+                                """, UUID.randomUUID(), ecoUserId, TestActivityFixture.ACTION, points, day,
+                                OffsetDateTime.now().minusHours(1));
+        }
+
+        private Integer dailyPoints(UUID ecoUserId, LocalDate day) {
+                return jdbcTemplate.queryForObject(
+                                "select sum(points) from daily_points where eco_user_id = ? and activity_date = ?",
+                                Integer.class, ecoUserId, day);
+        }
+
+        private ActivityEntry historicalEntry(UUID ecoUserId, String actionDefinitionId, Category category, int points,
+                        LocalDate date) {
+                ActivityEntry entry = new ActivityEntry();
+                entry.setActivityEntryId(UUID.randomUUID());
+                entry.setEcoUserId(ecoUserId);
+                entry.setActionDefinitionId(UUID.fromString(actionDefinitionId));
+                entry.setActionName(category == Category.MOBILITAET ? "Fahrrad statt Auto" : "Muell getrennt");
+                entry.setCategory(category);
+                entry.setQuantity(1);
+                entry.setUnit(category == Category.MOBILITAET ? Unit.KM : Unit.STUECK);
+                entry.setPoints(points);
+                entry.setTimestamp(date.atStartOfDay().atOffset(ZoneOffset.UTC));
+                entry.setActivityDate(date);
+                entry.setSource(ActivitySource.IMPORT);
+                return entry;
+        }
+
+        private String stream(MockHttpServletRequestBuilder request) throws Exception {
+                MvcResult started = mockMvc.perform(request)
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                return mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists("Content-Disposition"))
+                                .andReturn()
+                                .getResponse()
+                                .getContentAsString(StandardCharsets.UTF_8);
+        }
+
+        private MvcResult subscribe(String path, EcoUserProfileSnapshot student) throws Exception {
+                String token = testJwtHelper.createJwt(student.userId(), student.email(), Role.SCHUELER);
+                return mockMvc.perform(get(path)
+                                .header("Authorization", "Bearer " + token)
+                                .accept(MediaType.TEXT_EVENT_STREAM))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+        }
+
+        private Map<UUID, Integer> latestPoints(MvcResult stream) {
+                Map<UUID, Integer> points = new HashMap<>();
+                for (JsonNode event : sseEvents(stream, "leaderboard-changes")) {
+                        for (JsonNode change : event.get("changes")) {
+                                points.put(UUID.fromString(change.get("ecoUserId").asText()), change.get("points").asInt());
+                        }
+                }
+                return points;
+        }
+
+        private int latestProgress(MvcResult stream) {
+                List<JsonNode> progress = sseEvents(stream, "progress");
+                return progress.isEmpty() ? 0 : progress.get(progress.size() - 1).get("totalPoints").asInt();
+        }
+
+        private List<JsonNode> sseEvents(MvcResult stream, String name) {
+                List<JsonNode> events = new ArrayList<>();
+                String content = new String(stream.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+                for (String block : content.split("\n\n")) {
+                        String event = null;
+                        String data = null;
+                        for (String line : block.split("\n")) {
+                                if (line.startsWith("event:")) {
+                                        event = line.substring("event:".length());
+                                } else if (line.startsWith("data:")) {
+                                        data = line.substring("data:".length());
+                                }
+                        }
+                        if (name.equals(event) && data != null) {
+                                try {
+                                        events.add(objectMapper.readTree(data));
+                                } catch (Exception e) {
+                                        throw new IllegalStateException("Ungültiges Event: " + block, e);
+                                }
+                        }
+                }
+                return events;
+        }
+
+        private void registerStudentsWithActivity(String classId, String prefix, int count) throws Exception {
+                for (int i = 0; i < count; i++) {
+                        String email = "student-%s-%d-%s@ecotrack.test".formatted(prefix, i, UUID.randomUUID());
+                        String token = registerAndExtractToken(email, "SCHUELER", classId);
+                        mockMvc.perform(post("/api/activities")
+                                        .header("Authorization", "Bearer " + token)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                        {
+                                                          "actionDefinitionId": "11111111-1111-1111-1111-111111111111",
+                                                          "quantity": 1
+                                                        }
+                                                        """))
+                                        .andExpect(status().isCreated());
+                }
+        }
+
+        private long countDashboardStatements(String teacherToken, String classId) throws Exception {
+                // Die Projektionen laufen im Hintergrund und zählen sonst mit.
+                awaitActivityEvents(classId);
+                Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+                statistics.clear();
+                mockMvc.perform(get("/api/dashboard/class/" + classId)
+                                .header("Authorization", "Bearer " + teacherToken))
+                                .andExpect(status().isOk());
+                return statistics.getPrepareStatementCount();
+        }
+
         private String registerAndExtractToken(String email, String role, String classId) throws Exception {
                 String classJson = classId == null ? "null" : "\"" + classId + "\"";
                 String payload = """
@@ -0,0 +1,102 @@
+package at.htl.ecotrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Prüft die Partitionierung aus {@code db/vendor/postgresql/V7__partition_activity_entries.sql}
+ * gegen ein echtes PostgreSQL. H2 sieht diese Migration nicht; ohne Docker wird der Test übersprungen.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresPartitioningTests {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void migrationCreatesMonthlyPartitionsTwelveMonthsAhead() {
+        LocalDate today = LocalDate.now();
+        assertThat(exists(partitionName(today))).isTrue();
+        assertThat(exists(partitionName(today.plusMonths(12)))).isTrue();
+        assertThat(ensure(today, today.plusMonths(12))).isZero();
+    }
+
+    @Test
+    void rowsInDefaultPartitionAreMovedWhenTheirMonthIsCreated() {
+        LocalDate today = LocalDate.now();
+        LocalDate future = today.plusMonths(14);
+        LocalDate past = today.minusYears(3);
+        UUID futureEntry = insertEntry(future);
+        UUID pastEntry = insertEntry(past);
+        assertThat(partitionOf(futureEntry)).isEqualTo("activity_entries_default");
+        assertThat(partitionOf(pastEntry)).isEqualTo("activity_entries_default");
+
+        // Früher schlug create table ... partition of hier fehl, weil die Auffangpartition Zeilen des Monats hielt.
+        assertThat(ensure(past, future)).isPositive();
+        assertThat(partitionOf(futureEntry)).isEqualTo(partitionName(future));
+        assertThat(partitionOf(pastEntry)).isEqualTo(partitionName(past));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from activity_entries_default", Long.class)).isZero();
+
+        // Die Auffangpartition ist wieder angehängt.
+        UUID farFuture = insertEntry(today.plusYears(5));
+        assertThat(partitionOf(farFuture)).isEqualTo("activity_entries_default");
+        assertThat(ensure(past, future)).isZero();
+    }
+
+    private static int ensure(LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForObject("select ecotrack_ensure_activity_partitions(?, ?)", Integer.class, from, to);
+    }
+
+    private static boolean exists(String table) {
+        return jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, table);
+    }
+
+    private static String partitionName(LocalDate date) {
+        return "activity_entries_" + date.format(PARTITION_SUFFIX);
+    }
+
+    private static String partitionOf(UUID activityEntryId) {
+        return jdbcTemplate.queryForObject(
+                "select tableoid::regclass::text from activity_entries where activity_entry_id = ?",
+                String.class, activityEntryId);
+    }
+
+    private static UUID insertEntry(LocalDate date) {
+        UUID activityEntryId = UUID.randomUUID();
+        jdbcTemplate.update("""
+                insert into activity_entries(activity_entry_id, eco_user_id, action_definition_id, action_name, category,
+                                             quantity, unit, points, timestamp, activity_date, source)
+                values (?, ?, ?, 'Fahrrad statt Auto', 'MOBILITAET', 1, 'KM', 10, ?, ?, 'IMPORT')
+                """, activityEntryId, UUID.randomUUID(), TestActivityFixture.ACTION, OffsetDateTime.now(), date);
+        return activityEntryId;
+    }
+}
@@ -0,0 +1,99 @@
+package at.htl.ecotrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Prüft per {@code EXPLAIN}, dass die Abfragen der Repositories die Indizes aus
+ * {@code V4__query_indexes.sql} und {@code V5__activity_feed_keyset_indexes.sql} verwenden
+ * (H2 im PostgreSQL-Modus).
+ */
+@SpringBootTest
+@Import(TestJwtConfig.class)
+class QueryIndexTests {
+
+    private static final String USER = "'00000000-0000-0000-0000-0000000000aa'";
+    private static final String ACTION = "'11111111-1111-1111-1111-111111111111'";
+    private static final String CLASS = "'00000000-0000-0000-0000-0000000000bb'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicateCheckUsesDuplicateIndex() {
+        assertThat(explain("""
+                select * from activity_entries
+                where eco_user_id = %s and action_definition_id = %s and quantity = 2.0 and activity_date = date '2026-03-01'
+                order by timestamp desc
+                fetch first 1 rows only
+                """.formatted(USER, ACTION)))
+                .contains("idx_activity_entries_duplicate_check");
+    }
+
+    @Test
+    void historyLooksUpUserWithoutTableScan() {
+        // Zwischen gleich teuren Indizes mit eco_user_id vorne entscheidet H2 nach Anlagereihenfolge,
+        // nicht nach der Sortierung. Den Sortier-Index prüft feedSeekUsesUserTimestampIndex.
+        assertThat(explain("""
+                select * from activity_entries
+                where eco_user_id = %s
+                order by timestamp desc
+                offset 0 rows fetch first 20 rows only
+                """.formatted(USER)))
+                .contains(": eco_user_id = ")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void historyByCategoryUsesCategoryIndex() {
+        assertThat(explain("""
+                select * from activity_entries
+                where eco_user_id = %s and category = 'MOBILITAET'
+                order by timestamp desc
+                offset 0 rows fetch first 20 rows only
+                """.formatted(USER)))
+                .contains("idx_activity_entries_user_category_timestamp");
+    }
+
+    @Test
+    void feedSeekUsesUserTimestampIndex() {
+        assertThat(explain("""
+                select * from activity_entries
+                where eco_user_id = %s
+                  and (timestamp, activity_entry_id)
+                      < (timestamp with time zone '2026-03-01 10:00:00+01', '00000000-0000-0000-0000-0000000000cc')
+                order by timestamp desc, activity_entry_id desc
+                fetch first 21 rows only
+                """.formatted(USER)))
+                .contains("idx_activity_entries_user_timestamp");
+    }
+
+    @Test
+    void pointsInRangeUsesUserDateIndex() {
+        assertThat(explain("""
+                select eco_user_id, sum(points) from activity_entries
+                where eco_user_id in (%s) and activity_date between date '2026-01-01' and date '2026-03-01'
+                group by eco_user_id
+                """.formatted(USER)))
+                .contains("idx_activity_entries_user_date");
+    }
+
+    @Test
+    void profileAndChallengeLookupsUseClassIndexes() {
+        assertThat(explain("select * from eco_user_profiles where class_id = " + CLASS))
+                .contains("idx_eco_user_profiles_class");
+        assertThat(explain("select * from eco_user_profiles where school_id = " + CLASS))
+                .contains("idx_eco_user_profiles_school");
+        assertThat(explain("select * from challenges where class_id = %s and status = 'ACTIVE'".formatted(CLASS)))
+                .contains("idx_challenges_class_status");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
@@ -0,0 +1,141 @@
+package at.htl.ecotrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import at.htl.ecotrack.scoring.application.ScoringService;
+import at.htl.ecotrack.shared.model.Role;
+import at.htl.ecotrack.shared.security.CurrentUser;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
+
+/**
+ * Primär-DB und Replikat sind zwei getrennte H2-Datenbanken. Das Replikat bekommt nur das Schema,
+ * Testdaten werden gezielt in eine der beiden geschrieben – so ist sichtbar, wohin gelesen wird.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTests.PRIMARY_URL,
+        "ecotrack.datasource.replica.jdbc-url=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "ecotrack.datasource.replica.username=sa",
+        "ecotrack.datasource.read-your-writes-window=1m"
+})
+@Import(TestJwtConfig.class)
+class ReadReplicaRoutingTests {
+
+    static final String PRIMARY_URL =
+            "jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+    static final String REPLICA_URL =
+            "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    /**
+     * Das Replikat braucht das Schema schon beim Start des Kontexts (z.B. Aufbau des Leaderboard-Index).
+     */
+    private static final JdbcTemplate replica = migrateReplica();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ScoringService scoringService;
+
+    @Autowired
+    private EcoUserProfileService profileService;
+
+    private static JdbcTemplate migrateReplica() {
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure()
+                .dataSource(replicaDataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load()
+                .migrate();
+        return new JdbcTemplate(replicaDataSource);
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplicaAndWritesUsePrimary() {
+        assertThat(databaseName(true)).isEqualTo("routing-replica");
+        assertThat(databaseName(false)).isEqualTo("routing-primary");
+        assertThat(jdbcTemplate.queryForObject("select database()", String.class)).isEqualTo("routing-primary");
+    }
+
+    @Test
+    void readOnlyServiceMethodsReadFromReplica() {
+        UUID classId = UUID.randomUUID();
+        UUID ecoUserId = UUID.randomUUID();
+        insertProfile(replica, ecoUserId, classId);
+        insertActivity(replica, ecoUserId, 10);
+
+        List<EcoUserProfile> profiles = profileService.getByClassId(classId);
+        assertThat(profiles).extracting(EcoUserProfile::getEcoUserId).containsExactly(ecoUserId);
+        assertThat(scoringService.getUserPointsInRange(ecoUserId, LocalDate.now(), LocalDate.now())).isEqualTo(10);
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimary() {
+        UUID ecoUserId = UUID.randomUUID();
+        insertActivity(replica, ecoUserId, 10);
+        insertActivity(jdbcTemplate, ecoUserId, 5);
+
+        authenticate(UUID.randomUUID());
+        assertThat(scoringService.getUserPointsInRange(ecoUserId, LocalDate.now(), LocalDate.now())).isEqualTo(10);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> jdbcTemplate.queryForObject("select 1", Integer.class));
+        assertThat(scoringService.getUserPointsInRange(ecoUserId, LocalDate.now(), LocalDate.now())).isEqualTo(5);
+
+        authenticate(UUID.randomUUID());
+        assertThat(scoringService.getUserPointsInRange(ecoUserId, LocalDate.now(), LocalDate.now())).isEqualTo(10);
+    }
+
+    private String databaseName(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+    }
+
+    private void authenticate(UUID userId) {
+        CurrentUser user = new CurrentUser(userId, userId + "@ecotrack.test", Role.SCHUELER);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    private static void insertProfile(JdbcTemplate target, UUID ecoUserId, UUID classId) {
+        target.update("""
+                insert into eco_user_profiles(eco_user_id, user_id, email, first_name, last_name, display_name,
+                                              class_id, class_name, created_at, updated_at)
+                values (?, ?, ?, 'Max', 'Replica', 'Max Replica', ?, '1AHIT', current_timestamp, current_timestamp)
+                """, ecoUserId, UUID.randomUUID(), ecoUserId + "@ecotrack.test", classId);
+    }
+
+    private static void insertActivity(JdbcTemplate target, UUID ecoUserId, int points) {
+        target.update("""
+                insert into activity_entries(activity_entry_id, eco_user_id, action_definition_id, action_name, category,
+                                             quantity, unit, points, timestamp, activity_date, source)
+                values (?, ?, '11111111-1111-1111-1111-111111111111', 'Fahrrad statt Auto', 'MOBILITAET',
+                        1, 'KM', ?, current_timestamp, current_date, 'APP')
+                """, UUID.randomUUID(), ecoUserId, points);
+    }
+}
@@ -0,0 +1,107 @@
+package at.htl.ecotrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import at.htl.ecotrack.scoring.application.ScoringDtos;
+import at.htl.ecotrack.shared.model.Role;
+import at.htl.ecotrack.shared.security.CurrentUser;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
+
+/**
+ * Gemeinsame Test-Fixture für Tests, die Aktivitäten direkt über die Services buchen:
+ * Schüler-Profile anlegen, Anfragen bauen, gleichzeitig starten und auf die asynchronen
+ * Projektionen warten.
+ */
+@TestComponent
+public class TestActivityFixture {
+
+    /** "Fahrrad statt Auto" aus V1__init.sql, 10 Punkte pro km. */
+    public static final UUID ACTION = UUID.fromString("11111111-1111-1111-1111-111111111111");
+
+    private final EcoUserProfileService profileService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestActivityFixture(EcoUserProfileService profileService, JdbcTemplate jdbcTemplate) {
+        this.profileService = profileService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public EcoUserProfileSnapshot createStudent(String prefix) {
+        return createStudent(prefix, null, null);
+    }
+
+    public EcoUserProfileSnapshot createStudent(String prefix, UUID classId, UUID schoolId) {
+        UUID userId = UUID.randomUUID();
+        return profileService.createProfile(userId, prefix + "-" + userId + "@ecotrack.test", "Max", "Tester",
+                Role.SCHUELER, classId, classId == null ? null : "2LHIT", schoolId,
+                schoolId == null ? null : "HTL Leoben");
+    }
+
+    public CurrentUser currentUser(EcoUserProfileSnapshot profile) {
+        return new CurrentUser(profile.userId(), profile.email(), Role.SCHUELER);
+    }
+
+    public ScoringDtos.CreateActivityRequest activity(double quantity) {
+        return new ScoringDtos.CreateActivityRequest(ACTION, quantity, null);
+    }
+
+    /**
+     * Startet alle Aufrufe gleichzeitig und liefert ihre Ergebnisse in Aufrufreihenfolge.
+     */
+    public <T> List<T> runConcurrently(int threads, List<Callable<T>> calls) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>(calls.size());
+        try {
+            for (Callable<T> call : calls) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Wartet, bis die Projektionen alle Events des EcoUsers verarbeitet haben.
+     */
+    public void awaitProcessedEvents(UUID ecoUserId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && pendingEvents(ecoUserId) > 0) {
+            Thread.sleep(50);
+        }
+        assertThat(pendingEvents(ecoUserId)).isZero();
+    }
+
+    public int pendingEvents(UUID ecoUserId) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from activity_events where eco_user_id = ? and processed_at is null",
+                Integer.class, ecoUserId);
+    }
+
+    public Integer dailyPoints(UUID ecoUserId) {
+        return jdbcTemplate.queryForObject(
+                "select sum(points) from daily_points where eco_user_id = ?", Integer.class, ecoUserId);
+    }
+}
@@ -0,0 +1,72 @@
+package at.htl.ecotrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import at.htl.ecotrack.scoring.application.ActivityEventDispatcher;
+import at.htl.ecotrack.scoring.application.ScoringService;
+import at.htl.ecotrack.shared.security.CurrentUser;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Zählt die Statements auf den Schreibpfaden. Entities mit in Java vergebener UUID müssen
+ * direkt per INSERT gespeichert werden, ohne vorheriges SELECT durch {@code merge}.
+ *
+ * <p>
+ * Eigener Kontext, weil die Projektionen hier abgeschaltet sind (siehe {@link #eventDispatcher}).
+ */
+@SpringBootTest
+@Import({ TestJwtConfig.class, TestActivityFixture.class })
+class WritePathStatementTests {
+
+    @Autowired
+    private ScoringService scoringService;
+
+    @Autowired
+    private TestActivityFixture fixture;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Die Hibernate-Statistik ist global; die Projektionen im Hintergrund würden sonst mitgezählt.
+     */
+    @MockBean
+    private ActivityEventDispatcher eventDispatcher;
+
+    @Test
+    void createProfileIssuesSingleInsert() {
+        Statistics statistics = statistics();
+        fixture.createStudent("stmt");
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    }
+
+    @Test
+    void createActivityDoesNotSelectBeforeInsert() {
+        CurrentUser currentUser = fixture.currentUser(fixture.createStudent("stmt"));
+        scoringService.createActivity(currentUser, fixture.activity(1));
+
+        // Duplikatprüfung, INSERT und Ledger (ensure, increment, read); das Event schreibt JDBC,
+        // die Projektionen laufen asynchron.
+        Statistics statistics = statistics();
+        scoringService.createActivity(currentUser, fixture.activity(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -2,8 +2,10 @@ package at.htl.ecotrack.administration.api;
 
 import at.htl.ecotrack.administration.application.AuthDtos;
 import at.htl.ecotrack.administration.application.AuthService;
+import at.htl.ecotrack.shared.export.ExportFormat;
 import at.htl.ecotrack.shared.model.Role;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -32,6 +35,14 @@ public class AdminController {
         return authService.getUsers(page, size, role);
     }
 
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(name = "format", defaultValue = "CSV") ExportFormat format,
+                                                             @RequestParam(name = "role", required = false) Role role) {
+        return ResponseEntity.ok()
+                .headers(format.downloadHeaders("benutzer"))
+                .body(authService.exportUsers(role, format));
+    }
+
     @GetMapping("/classes")
     public List<AuthDtos.ClassResponse> classes() {
         return authService.getClasses();
@@ -11,19 +11,24 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import at.htl.ecotrack.administration.domain.AppUser;
+import at.htl.ecotrack.administration.domain.AppUserExportReader;
 import at.htl.ecotrack.administration.domain.AppUserRepository;
 import at.htl.ecotrack.administration.domain.SchoolClass;
 import at.htl.ecotrack.administration.domain.SchoolClassRepository;
 import at.htl.ecotrack.administration.security.KeycloakAdminService;
 import at.htl.ecotrack.administration.security.KeycloakTokenService;
 import at.htl.ecotrack.shared.error.ApiException;
+import at.htl.ecotrack.shared.export.ExportFormat;
+import at.htl.ecotrack.shared.export.ExportWriter;
+import at.htl.ecotrack.shared.id.UuidV7;
 import at.htl.ecotrack.shared.model.Role;
 import at.htl.ecotrack.shared.model.UserStatus;
 import at.htl.ecotrack.shared.security.CurrentUser;
 import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
-import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
 
 /**
  * Application-Service für Authentifizierung und Benutzerverwaltung.
@@ -43,17 +48,20 @@ public class AuthService {
     private final EcoUserProfileService profileService;
     private final KeycloakAdminService keycloakAdminService;
     private final KeycloakTokenService keycloakTokenService;
+    private final AppUserExportReader userExportReader;
 
     public AuthService(AppUserRepository appUserRepository,
             SchoolClassRepository classRepository,
             EcoUserProfileService profileService,
             KeycloakAdminService keycloakAdminService,
-            KeycloakTokenService keycloakTokenService) {
+            KeycloakTokenService keycloakTokenService,
+            AppUserExportReader userExportReader) {
         this.appUserRepository = appUserRepository;
         this.classRepository = classRepository;
         this.profileService = profileService;
         this.keycloakAdminService = keycloakAdminService;
         this.keycloakTokenService = keycloakTokenService;
+        this.userExportReader = userExportReader;
     }
 
     // ---------------------------------------------------------------------------
@@ -182,7 +190,7 @@ public class AuthService {
             throw new ApiException(HttpStatus.FORBIDDEN, "USER_DISABLED", "Benutzer ist deaktiviert");
         }
 
-        EcoUserProfile profile = profileService.getByUserId(user.getUserId());
+        EcoUserProfileSnapshot profile = profileService.getByUserId(user.getUserId());
         return toAuthResponse(tokens, user, profile);
     }
 
@@ -293,13 +301,13 @@ public class AuthService {
     // ---------------------------------------------------------------------------
 
     public AuthDtos.UserInfo getCurrentUserInfo(CurrentUser currentUser) {
-        EcoUserProfile profile = profileService.getByUserId(currentUser.userId());
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
         return new AuthDtos.UserInfo(
                 currentUser.userId(),
-                profile.getEcoUserId(),
+                profile.ecoUserId(),
                 currentUser.email(),
-                profile.getFirstName(),
-                profile.getLastName(),
+                profile.firstName(),
+                profile.lastName(),
                 currentUser.role());
     }
 
@@ -325,10 +333,21 @@ public class AuthService {
                 result.getTotalElements(), result.getTotalPages());
     }
 
+    /**
+     * Export der Benutzerliste; die Zeilen werden erst beim Schreiben der Antwort gelesen.
+     */
+    public StreamingResponseBody exportUsers(Role role, ExportFormat format) {
+        return out -> {
+            ExportWriter writer = ExportWriter.open(format, AppUserExportReader.COLUMNS, out);
+            userExportReader.export(role, writer);
+            writer.flush();
+        };
+    }
+
     @Transactional
     public AuthDtos.ClassResponse createClass(AuthDtos.CreateClassRequest request) {
         SchoolClass schoolClass = new SchoolClass();
-        schoolClass.setClassId(UUID.randomUUID());
+        schoolClass.setClassId(UuidV7.generate());
         schoolClass.setName(request.name());
         schoolClass.setSchoolId(request.schoolId());
         schoolClass.setSchoolName(request.schoolName());
@@ -355,17 +374,17 @@ public class AuthService {
 
     private AuthDtos.AuthResponse toAuthResponse(KeycloakTokenService.KeycloakTokenResponse tokens,
             AppUser user,
-            EcoUserProfile profile) {
+            EcoUserProfileSnapshot profile) {
         return new AuthDtos.AuthResponse(
                 tokens.accessToken(),
                 tokens.refreshToken(),
                 tokens.expiresIn(),
                 new AuthDtos.UserInfo(
                         user.getUserId(),
-                        profile.getEcoUserId(),
+                        profile.ecoUserId(),
                         user.getEmail(),
-                        profile.getFirstName(),
-                        profile.getLastName(),
+                        profile.firstName(),
+                        profile.lastName(),
                         user.getRole()));
     }
 
@@ -0,0 +1,69 @@
+package at.htl.ecotrack.administration.domain;
+
+import at.htl.ecotrack.shared.export.ExportWriter;
+import at.htl.ecotrack.shared.model.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streamt die Benutzerliste für den Admin-Export direkt vom JDBC-Cursor in den Export,
+ * ohne Seitenabfragen und ohne Count-Query.
+ */
+@Repository
+public class AppUserExportReader {
+
+    public static final List<String> COLUMNS = List.of(
+            "userId", "email", "role", "status", "mustChangePassword",
+            "firstName", "lastName", "className", "schoolName", "createdAt");
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String SELECT = """
+            select u.user_id, u.email, u.role, u.status, u.must_change_password,
+                   p.first_name, p.last_name, p.class_name, p.school_name, u.created_at
+            from app_users u
+            left join eco_user_profiles p on p.user_id = u.user_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AppUserExportReader(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Exportiert alle Benutzer (optional einer Rolle), sortiert nach E-Mail.
+     */
+    public void export(Role role, ExportWriter writer) {
+        RowCallbackHandler handler = rs -> writer.row(
+                rs.getObject("user_id", UUID.class),
+                rs.getString("email"),
+                rs.getString("role"),
+                rs.getString("status"),
+                rs.getBoolean("must_change_password"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("class_name"),
+                rs.getString("school_name"),
+                rs.getObject("created_at", OffsetDateTime.class));
+        readOnlyTransaction.executeWithoutResult(status -> {
+            if (role == null) {
+                jdbcTemplate.query(SELECT + " order by u.email", handler);
+            } else {
+                jdbcTemplate.query(SELECT + " where u.role = ? order by u.email", handler, role.name());
+            }
+        });
+    }
+}
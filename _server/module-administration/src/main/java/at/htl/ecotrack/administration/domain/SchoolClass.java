@@ -3,15 +3,19 @@ package at.htl.ecotrack.administration.domain;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "school_classes")
-public class SchoolClass {
+public class SchoolClass implements Persistable<UUID> {
 
     @Id
     @Column(name = "class_id", nullable = false)
@@ -29,11 +33,30 @@ public class SchoolClass {
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
+    @Transient
+    private boolean newEntity = true;
+
     @PrePersist
     void onCreate() {
         createdAt = OffsetDateTime.now();
     }
 
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public UUID getId() {
+        return classId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
     public UUID getClassId() {
         return classId;
     }
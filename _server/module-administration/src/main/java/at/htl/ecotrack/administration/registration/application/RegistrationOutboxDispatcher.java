@@ -0,0 +1,182 @@
+package at.htl.ecotrack.administration.registration.application;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import at.htl.ecotrack.administration.registration.domain.RegistrationOutbox;
+import at.htl.ecotrack.administration.registration.domain.RegistrationTask;
+import at.htl.ecotrack.administration.registration.infrastructure.IdentityProvider;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Arbeitet die {@link RegistrationOutbox} ab: Rollenzuweisung und
+ * Verifikations-E-Mail laufen außerhalb jeder Datenbank-Transaktion.
+ *
+ * Pro Durchlauf werden höchstens {@code parallelism} Aufrufe gleichzeitig gegen
+ * den Identity Provider abgesetzt. Fehlgeschlagene Einträge werden mit
+ * exponentiellem Backoff wiederholt und nach {@code max-attempts} aufgegeben.
+ *
+ * Der Scheduler stößt nur an; die Schleife läuft auf einem eigenen Thread, damit
+ * ein langsamer Identity Provider keinen der geteilten Scheduler-Threads belegt.
+ */
+@Component
+public class RegistrationOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationOutboxDispatcher.class);
+
+    private static final Duration LEASE = Duration.ofMinutes(2);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(15);
+
+    private final RegistrationOutbox outbox;
+    private final IdentityProvider identityProvider;
+    private final ExecutorService executor;
+    private final ExecutorService loop;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final int parallelism;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration retention;
+
+    public RegistrationOutboxDispatcher(RegistrationOutbox outbox,
+            IdentityProvider identityProvider,
+            @Value("${ecotrack.registration.outbox.parallelism:4}") int parallelism,
+            @Value("${ecotrack.registration.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${ecotrack.registration.outbox.initial-backoff:5s}") Duration initialBackoff,
+            @Value("${ecotrack.registration.outbox.retention:7d}") Duration retention) {
+        this.outbox = outbox;
+        this.identityProvider = identityProvider;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.retention = retention;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> Thread.ofPlatform()
+                .name("registration-outbox-" + threads.incrementAndGet())
+                .daemon()
+                .unstarted(runnable));
+        this.loop = Executors.newSingleThreadExecutor(runnable -> Thread.ofPlatform()
+                .name("registration-outbox")
+                .daemon()
+                .unstarted(runnable));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        loop.shutdownNow();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Startet {@link #dispatch()} auf dem eigenen Thread, falls dort nicht schon ein
+     * Durchlauf läuft, und kehrt sofort zurück.
+     */
+    @Scheduled(fixedDelayString = "${ecotrack.registration.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        loop.execute(() -> {
+            try {
+                dispatch();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log.warn("Registrierungsschritte konnten nicht abgearbeitet werden", ex);
+            } finally {
+                dispatching.set(false);
+            }
+        });
+    }
+
+    /**
+     * Führt alle fälligen Einträge aus, bis keine mehr offen sind.
+     *
+     * @return Anzahl erfolgreich ausgeführter Einträge
+     */
+    public int dispatch() throws InterruptedException {
+        int done = 0;
+        List<RegistrationTask> claimed;
+        do {
+            claimed = outbox.claimDue(parallelism, LEASE);
+            List<Callable<Boolean>> calls = new ArrayList<>(claimed.size());
+            for (RegistrationTask task : claimed) {
+                calls.add(() -> execute(task));
+            }
+            for (Future<Boolean> result : executor.invokeAll(calls)) {
+                if (Boolean.TRUE.equals(resultOf(result))) {
+                    done++;
+                }
+            }
+        } while (claimed.size() == parallelism);
+        return done;
+    }
+
+    @Scheduled(cron = "${ecotrack.registration.outbox.purge-cron:0 15 4 * * *}")
+    public void purge() {
+        int purged = outbox.purgeDoneBefore(OffsetDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("{} erledigte Registrierungsschritte gelöscht", purged);
+        }
+    }
+
+    private boolean execute(RegistrationTask task) {
+        try {
+            switch (task.type()) {
+                case ASSIGN_ROLE -> identityProvider.assignRole(task.externalUserId(), task.role());
+                case SEND_VERIFICATION_EMAIL -> identityProvider.sendVerificationEmail(task.externalUserId());
+            }
+            return report(task, outbox.markDone(task));
+        } catch (RuntimeException ex) {
+            if (task.attempts() >= maxAttempts) {
+                log.error("Registrierungsschritt {} für {} nach {} Versuchen aufgegeben",
+                        task.type(), task.externalUserId(), task.attempts(), ex);
+                report(task, outbox.markFailed(task, ex.getMessage()));
+            } else {
+                log.warn("Registrierungsschritt {} für {} fehlgeschlagen (Versuch {}): {}",
+                        task.type(), task.externalUserId(), task.attempts(), ex.getMessage());
+                report(task, outbox.scheduleRetry(task, OffsetDateTime.now().plus(backoff(task.attempts())),
+                        ex.getMessage()));
+            }
+            return false;
+        }
+    }
+
+    private static boolean report(RegistrationTask task, boolean applied) {
+        if (!applied) {
+            log.warn("Reservierung für Registrierungsschritt {} ({}. Versuch) abgelaufen, Ergebnis verworfen",
+                    task.taskId(), task.attempts());
+        }
+        return applied;
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+    private static Boolean resultOf(Future<Boolean> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException ex) {
+            log.warn("Registrierungsschritt konnte nicht verarbeitet werden", ex.getCause());
+            return false;
+        }
+    }
+}
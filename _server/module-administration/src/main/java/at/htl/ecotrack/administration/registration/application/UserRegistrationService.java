@@ -7,10 +7,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import at.htl.ecotrack.administration.registration.domain.AllowedDomain;
+import at.htl.ecotrack.administration.registration.domain.RegistrationOutbox;
 import at.htl.ecotrack.administration.registration.domain.RegistrationService;
+import at.htl.ecotrack.administration.registration.domain.RegistrationTask;
 import at.htl.ecotrack.administration.registration.domain.UserProfile;
 import at.htl.ecotrack.administration.registration.domain.UserProfileRepository;
 import at.htl.ecotrack.administration.registration.infrastructure.IdentityProvider;
@@ -26,9 +28,14 @@ import at.htl.ecotrack.shared.model.Role;
  * 2. Duplikat-Check im IdP (Keycloak)
  * 3. Duplikat-Check in der lokalen Datenbank
  * 4. Rollenbestimmung anhand der E-Mail-Domain
- * 5. Benutzer im Identity Provider anlegen
- * 6. UserProfile lokal persistieren
- * (Verifikations-E-Mail wird automatisch durch den IdP-Adapter versendet)
+ * 5. Benutzer im Identity Provider anlegen und Rolle zuweisen (ohne offene
+ *    DB-Transaktion); die Rolle bestimmt die Berechtigungen im Token und ist
+ *    daher Teil der Registrierung
+ * 6. UserProfile und Outbox-Eintrag (Verifikations-E-Mail) in einer kurzen
+ *    Transaktion persistieren
+ * Schlägt Schritt 5 oder 6 fehl, wird der IdP-Benutzer wieder gelöscht. Die
+ * Verifikations-E-Mail versendet danach der {@link RegistrationOutboxDispatcher}
+ * im Hintergrund.
  */
 @Service
 public class UserRegistrationService {
@@ -38,16 +45,22 @@ public class UserRegistrationService {
     private final RegistrationService registrationService;
     private final IdentityProvider identityProvider;
     private final UserProfileRepository userProfileRepository;
+    private final RegistrationOutbox registrationOutbox;
     private final RegistrationProperties registrationProperties;
+    private final TransactionTemplate transactionTemplate;
 
     public UserRegistrationService(RegistrationService registrationService,
             IdentityProvider identityProvider,
             UserProfileRepository userProfileRepository,
-            RegistrationProperties registrationProperties) {
+            RegistrationOutbox registrationOutbox,
+            RegistrationProperties registrationProperties,
+            TransactionTemplate transactionTemplate) {
         this.registrationService = registrationService;
         this.identityProvider = identityProvider;
         this.userProfileRepository = userProfileRepository;
+        this.registrationOutbox = registrationOutbox;
         this.registrationProperties = registrationProperties;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -57,7 +70,6 @@ public class UserRegistrationService {
      * @return DTO mit userId, E-Mail und Bestätigungsnachricht
      * @throws ApiException bei Validierungsfehlern oder bereits vorhandener E-Mail
      */
-    @Transactional
     public RegistrationDtos.RegistrationResponseDto registerUser(RegisterUserCommand command) {
         List<AllowedDomain> allowedDomains = buildAllowedDomains();
 
@@ -85,17 +97,27 @@ public class UserRegistrationService {
         Role role = registrationService.determineInitialRole(command.email());
         log.info("Registrierung für {}: automatisch bestimmte Rolle = {}", command.email(), role);
 
-        // 5. Benutzer im IdP anlegen (inkl. Verifikations-E-Mail)
+        // 5. Benutzer im IdP anlegen
         UUID keycloakUserId = identityProvider.createUser(
                 command.email(), command.password(),
-                command.firstName(), command.lastName(), role);
+                command.firstName(), command.lastName());
 
-        // 6. Lokales UserProfile persistieren
         UserProfile profile = UserProfile.create(
                 keycloakUserId, command.email(),
                 command.firstName(), command.lastName(),
                 role, command.classId());
-        userProfileRepository.save(profile);
+        try {
+            identityProvider.assignRole(keycloakUserId, role);
+
+            // 6. Lokales UserProfile und Verifikations-E-Mail persistieren
+            transactionTemplate.executeWithoutResult(status -> {
+                userProfileRepository.save(profile);
+                registrationOutbox.enqueue(List.of(RegistrationTask.sendVerificationEmail(keycloakUserId)));
+            });
+        } catch (RuntimeException ex) {
+            compensate(keycloakUserId);
+            throw ex;
+        }
 
         log.info("Registrierung erfolgreich: userId={}, email={}, role={}", keycloakUserId, command.email(), role);
 
@@ -118,6 +140,15 @@ public class UserRegistrationService {
         return new RegistrationDtos.EmailAvailabilityDto(email, available);
     }
 
+    private void compensate(UUID keycloakUserId) {
+        try {
+            identityProvider.deleteUser(keycloakUserId);
+        } catch (RuntimeException ex) {
+            log.error("IdP-Benutzer {} konnte nach fehlgeschlagener Registrierung nicht gelöscht werden",
+                    keycloakUserId, ex);
+        }
+    }
+
     private List<AllowedDomain> buildAllowedDomains() {
         return registrationProperties.allowedDomains().stream()
                 .map(AllowedDomain::new)
@@ -0,0 +1,45 @@
+package at.htl.ecotrack.administration.registration.domain;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Port (Ausgehende Schnittstelle): Transaktionale Outbox für nachgelagerte
+ * Registrierungsschritte.
+ *
+ * Einträge werden in derselben Transaktion wie das {@link UserProfile}
+ * geschrieben und danach von einem Hintergrund-Dispatcher abgearbeitet.
+ */
+public interface RegistrationOutbox {
+
+    /**
+     * Legt Einträge an; muss in der Transaktion der Registrierung laufen.
+     */
+    void enqueue(List<RegistrationTask> tasks);
+
+    /**
+     * Reserviert fällige Einträge für die Dauer von {@code lease} und erhöht ihren
+     * Versuchszähler. Ein Eintrag wird nur von einem Aufrufer reserviert; bleibt er
+     * liegen (z.B. Absturz), ist er nach Ablauf der Lease wieder fällig.
+     */
+    List<RegistrationTask> claimDue(int limit, Duration lease);
+
+    /**
+     * Die folgenden Methoden greifen nur, solange der Eintrag noch mit dem Versuch aus
+     * {@code claimed} reserviert ist. Ist die Lease abgelaufen und hat ein anderer Aufrufer den
+     * Eintrag neu reserviert, bleibt dessen Stand unangetastet.
+     *
+     * @return {@code false}, wenn die Reservierung nicht mehr gilt
+     */
+    boolean markDone(RegistrationTask claimed);
+
+    boolean scheduleRetry(RegistrationTask claimed, OffsetDateTime nextAttemptAt, String error);
+
+    /**
+     * Gibt einen Eintrag nach zu vielen Fehlversuchen endgültig auf.
+     */
+    boolean markFailed(RegistrationTask claimed, String error);
+
+    int purgeDoneBefore(OffsetDateTime completedBefore);
+}
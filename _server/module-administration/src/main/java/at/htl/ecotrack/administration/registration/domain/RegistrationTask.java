@@ -0,0 +1,33 @@
+package at.htl.ecotrack.administration.registration.domain;
+
+import java.util.UUID;
+
+import at.htl.ecotrack.shared.id.UuidV7;
+import at.htl.ecotrack.shared.model.Role;
+
+/**
+ * Nachgelagerter Schritt einer Registrierung, der über die
+ * {@link RegistrationOutbox} asynchron gegen den Identity Provider ausgeführt
+ * wird.
+ *
+ * @param taskId         ID des Eintrags
+ * @param externalUserId Benutzer im Identity Provider
+ * @param type           auszuführender Schritt
+ * @param role           Rolle bei {@link Type#ASSIGN_ROLE}, sonst null
+ * @param attempts       Anzahl bisheriger Versuche inklusive des laufenden
+ */
+public record RegistrationTask(UUID taskId, UUID externalUserId, Type type, Role role, int attempts) {
+
+    public enum Type {
+        /**
+         * Wird nicht mehr angelegt (die Rolle wird bei der Registrierung direkt
+         * zugewiesen); bleibt für bereits vorhandene Einträge erhalten.
+         */
+        ASSIGN_ROLE,
+        SEND_VERIFICATION_EMAIL
+    }
+
+    public static RegistrationTask sendVerificationEmail(UUID externalUserId) {
+        return new RegistrationTask(UuidV7.generate(), externalUserId, Type.SEND_VERIFICATION_EMAIL, null, 0);
+    }
+}
@@ -13,16 +13,25 @@ import at.htl.ecotrack.shared.model.Role;
 public interface IdentityProvider {
 
     /**
-     * Legt einen neuen Benutzer im Identity Provider an.
+     * Legt einen neuen Benutzer im Identity Provider an. Die Rolle folgt direkt
+     * danach über {@link #assignRole}, die Verifikations-E-Mail später über
+     * {@link #sendVerificationEmail}.
      *
      * @param email     E-Mail-Adresse (wird auch als Username verwendet)
      * @param password  initiales Passwort
      * @param firstName Vorname
      * @param lastName  Nachname
-     * @param role      zugewiesene Rolle
      * @return die externe Benutzer-UUID (z.B. Keycloak-ID)
      */
-    UUID createUser(String email, String password, String firstName, String lastName, Role role);
+    UUID createUser(String email, String password, String firstName, String lastName);
+
+    /**
+     * Entfernt einen Benutzer wieder (Kompensation, wenn die lokale Persistierung
+     * fehlschlägt).
+     *
+     * @param userId externe Benutzer-UUID
+     */
+    void deleteUser(UUID userId);
 
     /**
      * Prüft, ob eine E-Mail-Adresse bereits im Identity Provider registriert ist.
@@ -34,12 +43,11 @@ public interface IdentityProvider {
 
     /**
      * Weist dem Benutzer eine Rolle im Identity Provider zu.
-     * (Wird bei einer separaten Rollenzuweisung nach User-Anlage benötigt.)
      *
-     * @param userId   externe Benutzer-UUID
-     * @param roleName Name der Rolle (z.B. "SCHUELER", "LEHRER")
+     * @param userId externe Benutzer-UUID
+     * @param role   zuzuweisende Rolle
      */
-    void assignRole(UUID userId, String roleName);
+    void assignRole(UUID userId, Role role);
 
     /**
      * Sendet eine Verifikations-E-Mail an den Benutzer.
@@ -0,0 +1,135 @@
+package at.htl.ecotrack.administration.registration.infrastructure;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import at.htl.ecotrack.administration.registration.domain.RegistrationOutbox;
+import at.htl.ecotrack.administration.registration.domain.RegistrationTask;
+import at.htl.ecotrack.shared.model.Role;
+
+/**
+ * «Adapter» (Infrastructure): JDBC-Implementierung des
+ * {@link RegistrationOutbox}-Ports auf der Tabelle {@code registration_tasks}.
+ *
+ * Reserviert wird per bedingtem UPDATE auf den Versuchszähler, damit mehrere
+ * Instanzen denselben Eintrag nie gleichzeitig ausführen. Auch das Ergebnis wird
+ * nur mit dem reservierten Versuchszähler geschrieben.
+ */
+@Repository
+public class JdbcRegistrationOutboxAdapter implements RegistrationOutbox {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final RowMapper<RegistrationTask> ROW_MAPPER = (rs, rowNum) -> new RegistrationTask(
+            rs.getObject("task_id", UUID.class),
+            rs.getObject("external_user_id", UUID.class),
+            RegistrationTask.Type.valueOf(rs.getString("task_type")),
+            rs.getString("role") == null ? null : Role.valueOf(rs.getString("role")),
+            rs.getInt("attempts"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcRegistrationOutboxAdapter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void enqueue(List<RegistrationTask> tasks) {
+        OffsetDateTime now = OffsetDateTime.now();
+        jdbcTemplate.batchUpdate("""
+                        insert into registration_tasks(task_id, external_user_id, task_type, role, status, attempts,
+                                                       next_attempt_at, created_at)
+                        values (?, ?, ?, ?, 'PENDING', 0, ?, ?)
+                        """, tasks, tasks.size(),
+                (ps, task) -> {
+                    ps.setObject(1, task.taskId());
+                    ps.setObject(2, task.externalUserId());
+                    ps.setString(3, task.type().name());
+                    ps.setString(4, task.role() == null ? null : task.role().name());
+                    ps.setObject(5, now);
+                    ps.setObject(6, now);
+                });
+    }
+
+    @Override
+    public List<RegistrationTask> claimDue(int limit, Duration lease) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<RegistrationTask> due = jdbcTemplate.query("""
+                select task_id, external_user_id, task_type, role, attempts
+                from registration_tasks
+                where status = 'PENDING' and next_attempt_at <= ?
+                order by next_attempt_at
+                fetch first ? rows only
+                """, ROW_MAPPER, now, limit);
+        if (due.isEmpty()) {
+            return List.of();
+        }
+
+        OffsetDateTime leaseEnd = now.plus(lease);
+        int[][] counts = jdbcTemplate.batchUpdate("""
+                        update registration_tasks set attempts = attempts + 1, next_attempt_at = ?
+                        where task_id = ? and status = 'PENDING' and attempts = ?
+                        """, due, due.size(),
+                (ps, task) -> {
+                    ps.setObject(1, leaseEnd);
+                    ps.setObject(2, task.taskId());
+                    ps.setInt(3, task.attempts());
+                });
+        List<RegistrationTask> claimed = new ArrayList<>(due.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                RegistrationTask task = due.get(index++);
+                if (count > 0) {
+                    claimed.add(new RegistrationTask(task.taskId(), task.externalUserId(), task.type(), task.role(),
+                            task.attempts() + 1));
+                }
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean markDone(RegistrationTask claimed) {
+        return jdbcTemplate.update("""
+                update registration_tasks set status = 'DONE', completed_at = ?, last_error = null
+                where task_id = ? and status = 'PENDING' and attempts = ?
+                """, OffsetDateTime.now(), claimed.taskId(), claimed.attempts()) > 0;
+    }
+
+    @Override
+    public boolean scheduleRetry(RegistrationTask claimed, OffsetDateTime nextAttemptAt, String error) {
+        return jdbcTemplate.update("""
+                update registration_tasks set next_attempt_at = ?, last_error = ?
+                where task_id = ? and status = 'PENDING' and attempts = ?
+                """, nextAttemptAt, truncate(error), claimed.taskId(), claimed.attempts()) > 0;
+    }
+
+    @Override
+    public boolean markFailed(RegistrationTask claimed, String error) {
+        return jdbcTemplate.update("""
+                update registration_tasks set status = 'FAILED', completed_at = ?, last_error = ?
+                where task_id = ? and status = 'PENDING' and attempts = ?
+                """, OffsetDateTime.now(), truncate(error), claimed.taskId(), claimed.attempts()) > 0;
+    }
+
+    @Override
+    public int purgeDoneBefore(OffsetDateTime completedBefore) {
+        return jdbcTemplate.update("delete from registration_tasks where status = 'DONE' and completed_at < ?",
+                completedBefore);
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -25,12 +25,16 @@ public class KeycloakIdentityProvider implements IdentityProvider {
     }
 
     /**
-     * Legt einen Benutzer in Keycloak an, weist die Rolle zu und
-     * sendet die Verifikations-E-Mail (alles in einem Aufruf).
+     * Legt nur den Benutzer in Keycloak an (ein HTTP-Aufruf).
      */
     @Override
-    public UUID createUser(String email, String password, String firstName, String lastName, Role role) {
-        return keycloakAdminService.createUser(email, password, firstName, lastName, role);
+    public UUID createUser(String email, String password, String firstName, String lastName) {
+        return keycloakAdminService.createUserAccount(email, password, firstName, lastName);
+    }
+
+    @Override
+    public void deleteUser(UUID userId) {
+        keycloakAdminService.deleteUser(userId);
     }
 
     /**
@@ -43,18 +47,14 @@ public class KeycloakIdentityProvider implements IdentityProvider {
 
     /**
      * Weist eine Realm-Rolle in Keycloak zu.
-     * Hinweis: Wird normalerweise bereits durch {@link #createUser} erledigt.
-     * Für nachträgliche Rollenzuweisungen nutzbar.
      */
     @Override
-    public void assignRole(UUID userId, String roleName) {
-        // Rollenverteilung erfolgt in createUser via
-        // KeycloakAdminService.assignRealmRole
-        // Diese Methode ist für zukünftige Rollenwechsel vorgesehen
+    public void assignRole(UUID userId, Role role) {
+        keycloakAdminService.assignRealmRole(userId, role);
     }
 
     /**
-     * Sendet eine erneute Verifikations-E-Mail an den Benutzer.
+     * Sendet die Verifikations-E-Mail an den Benutzer.
      */
     @Override
     public void sendVerificationEmail(UUID userId) {
@@ -4,6 +4,7 @@ import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.slf4j.Logger;
@@ -12,8 +13,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
@@ -25,8 +24,8 @@ import at.htl.ecotrack.shared.model.Role;
  *
  * <p>
  * Verwendet den {@code ecotrack-backend} Service-Account (Client Credentials
- * Grant), um Admin-Tokens zu beziehen. Jede Methode holt sich frisch ein
- * Admin-Token.
+ * Grant). Das Admin-Token wird vom {@link KeycloakAdminTokenHolder} gecacht
+ * und vor Ablauf erneuert.
  */
 @Service
 public class KeycloakAdminService {
@@ -35,10 +34,15 @@ public class KeycloakAdminService {
 
     private final RestClient restClient;
     private final KeycloakAdminProperties props;
+    private final KeycloakAdminTokenHolder tokenHolder;
+    private final KeycloakUserCache userCache;
 
-    public KeycloakAdminService(KeycloakAdminProperties props) {
+    public KeycloakAdminService(KeycloakAdminProperties props, KeycloakAdminTokenHolder tokenHolder,
+            KeycloakUserCache userCache, RestClient keycloakRestClient) {
         this.props = props;
-        this.restClient = RestClient.create();
+        this.tokenHolder = tokenHolder;
+        this.userCache = userCache;
+        this.restClient = keycloakRestClient;
     }
 
     // ---------------------------------------------------------------------------
@@ -46,8 +50,8 @@ public class KeycloakAdminService {
     // ---------------------------------------------------------------------------
 
     /**
-     * Legt einen neuen Benutzer in Keycloak an, setzt sein Passwort und weist die
-     * Rolle zu.
+     * Legt einen neuen Benutzer in Keycloak an, setzt sein Passwort, weist die
+     * Rolle zu und sendet die Verifikations-E-Mail.
      *
      * @return die Keycloak-UUID des neu erstellten Benutzers
      * @throws ApiException wenn die E-Mail bereits in Keycloak existiert oder ein
@@ -55,7 +59,31 @@ public class KeycloakAdminService {
      */
     public UUID createUser(String email, String password, String firstName, String lastName, Role role) {
         String adminToken = obtainAdminToken();
-        String usersUrl = adminUsersUrl();
+        UUID keycloakUserId = createUserAccount(adminToken, email, password, firstName, lastName);
+        try {
+            assignRealmRole(adminToken, keycloakUserId, role);
+        } catch (HttpClientErrorException ex) {
+            throw translateCreateError(email, ex);
+        }
+        sendVerificationEmail(adminToken, keycloakUserId);
+        return keycloakUserId;
+    }
+
+    /**
+     * Legt nur den Benutzer mit Passwort an (ein HTTP-Aufruf). Rolle und
+     * Verifikations-E-Mail muss der Aufrufer selbst veranlassen.
+     *
+     * @return die Keycloak-UUID des neu erstellten Benutzers
+     * @throws ApiException wenn die E-Mail bereits in Keycloak existiert oder ein
+     *                      anderer Fehler auftritt
+     */
+    public UUID createUserAccount(String email, String password, String firstName, String lastName) {
+        return createUserAccount(obtainAdminToken(), email, password, firstName, lastName);
+    }
+
+    private UUID createUserAccount(String adminToken, String email, String password, String firstName,
+            String lastName) {
+        userCache.invalidate(email);
 
         Map<String, Object> userRepresentation = new HashMap<>();
         userRepresentation.put("username", email.toLowerCase());
@@ -72,7 +100,7 @@ public class KeycloakAdminService {
 
         try {
             ResponseEntity<Void> response = restClient.post()
-                    .uri(usersUrl)
+                    .uri(adminUsersUrl())
                     .header("Authorization", "Bearer " + adminToken)
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(userRepresentation)
@@ -87,26 +115,24 @@ public class KeycloakAdminService {
 
             // Location: .../admin/realms/ecotrack/users/{userId}
             String path = location.getPath();
-            UUID keycloakUserId = UUID.fromString(path.substring(path.lastIndexOf('/') + 1));
-
-            assignRealmRole(adminToken, keycloakUserId, role);
-            sendVerificationEmail(adminToken, keycloakUserId);
-
-            return keycloakUserId;
+            return UUID.fromString(path.substring(path.lastIndexOf('/') + 1));
 
         } catch (HttpClientErrorException ex) {
-            String responseBody = ex.getResponseBodyAsString();
-            log.error("Keycloak Benutzeranlage fehlgeschlagen fuer {}: {}", email, responseBody);
-            if (ex.getStatusCode().value() == 409) {
-                throw new ApiException(HttpStatus.BAD_REQUEST, "EMAIL_EXISTS",
-                        "E-Mail ist bereits in Keycloak registriert");
-            }
-            if (ex.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                throw new ApiException(HttpStatus.BAD_REQUEST, "PASSWORD_POLICY_VIOLATION",
-                        "Registrierung abgelehnt. Pruefe vor allem das Passwort: mindestens 8 Zeichen mit Gross- und Kleinbuchstaben, Zahl und Sonderzeichen.");
-            }
-            throw new ApiException(HttpStatus.BAD_GATEWAY, "KEYCLOAK_ERROR", "Keycloak nicht erreichbar");
+            throw translateCreateError(email, ex);
+        }
+    }
+
+    private ApiException translateCreateError(String email, HttpClientErrorException ex) {
+        log.error("Keycloak Benutzeranlage fehlgeschlagen fuer {}: {}", email, ex.getResponseBodyAsString());
+        if (ex.getStatusCode().value() == 409) {
+            return new ApiException(HttpStatus.BAD_REQUEST, "EMAIL_EXISTS",
+                    "E-Mail ist bereits in Keycloak registriert");
+        }
+        if (ex.getStatusCode() == HttpStatus.BAD_REQUEST) {
+            return new ApiException(HttpStatus.BAD_REQUEST, "PASSWORD_POLICY_VIOLATION",
+                    "Registrierung abgelehnt. Pruefe vor allem das Passwort: mindestens 8 Zeichen mit Gross- und Kleinbuchstaben, Zahl und Sonderzeichen.");
         }
+        return new ApiException(HttpStatus.BAD_GATEWAY, "KEYCLOAK_ERROR", "Keycloak nicht erreichbar");
     }
 
     /**
@@ -114,6 +140,7 @@ public class KeycloakAdminService {
      * Registrierungsfehlern).
      */
     public void deleteUser(UUID keycloakUserId) {
+        userCache.invalidate(keycloakUserId);
         String adminToken = obtainAdminToken();
         try {
             restClient.delete()
@@ -144,12 +171,17 @@ public class KeycloakAdminService {
 
     /**
      * Gibt die vollstaendigen Keycloak-Benutzerdaten fuer eine E-Mail zurueck.
+     * Ergebnisse werden kurz im {@link KeycloakUserCache} gehalten, Fehler nicht.
      *
      * @return Map mit Keycloak-Feldern oder {@code null}, wenn kein Benutzer
      *         existiert
      */
     @SuppressWarnings("unchecked")
     public Map<String, Object> getUserByEmail(String email) {
+        Optional<Map<String, Object>> cached = userCache.get(email);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
         String adminToken = obtainAdminToken();
         String url = adminUsersUrl() + "?email=" + email.toLowerCase() + "&exact=true";
         try {
@@ -158,10 +190,9 @@ public class KeycloakAdminService {
                     .header("Authorization", "Bearer " + adminToken)
                     .retrieve()
                     .body(List.class);
-            if (users == null || users.isEmpty()) {
-                return null;
-            }
-            return users.get(0);
+            Map<String, Object> user = users == null || users.isEmpty() ? null : users.get(0);
+            userCache.put(email, user);
+            return user;
         } catch (Exception ex) {
             log.warn("Keycloak User-Suche fehlgeschlagen fuer {}: {}", email, ex.getMessage());
             return null;
@@ -195,10 +226,11 @@ public class KeycloakAdminService {
 
     /**
      * Schickt eine E-Mail-Verifikationsaufforderung und holt sich selbst ein
-     * Admin-Token.
+     * Admin-Token. Fehler werden weitergereicht, damit der Aufrufer es erneut
+     * versuchen kann.
      */
     public void sendVerificationEmail(UUID keycloakUserId) {
-        sendVerificationEmail(obtainAdminToken(), keycloakUserId);
+        executeVerifyEmailAction(obtainAdminToken(), keycloakUserId);
     }
 
     /**
@@ -206,19 +238,24 @@ public class KeycloakAdminService {
      */
     public void sendVerificationEmail(String adminToken, UUID keycloakUserId) {
         try {
-            restClient.put()
-                    .uri(adminUsersUrl() + "/" + keycloakUserId + "/execute-actions-email")
-                    .header("Authorization", "Bearer " + adminToken)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(List.of("VERIFY_EMAIL"))
-                    .retrieve()
-                    .toBodilessEntity();
-            log.info("Verifikations-E-Mail gesendet an Keycloak-User {}", keycloakUserId);
+            executeVerifyEmailAction(adminToken, keycloakUserId);
         } catch (HttpClientErrorException ex) {
             log.warn("Verifikations-E-Mail fehlgeschlagen fuer {}: {}", keycloakUserId, ex.getMessage());
         }
     }
 
+    private void executeVerifyEmailAction(String adminToken, UUID keycloakUserId) {
+        userCache.invalidate(keycloakUserId);
+        restClient.put()
+                .uri(adminUsersUrl() + "/" + keycloakUserId + "/execute-actions-email")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(List.of("VERIFY_EMAIL"))
+                .retrieve()
+                .toBodilessEntity();
+        log.info("Verifikations-E-Mail gesendet an Keycloak-User {}", keycloakUserId);
+    }
+
     /**
      * Schickt eine Password-Reset-E-Mail ueber Keycloak an den Benutzer.
      */
@@ -246,6 +283,7 @@ public class KeycloakAdminService {
      * die {@code UPDATE_PASSWORD} Required-Action, falls vorhanden.
      */
     public void resetUserPassword(UUID keycloakUserId, String newPassword) {
+        userCache.invalidate(keycloakUserId);
         String adminToken = obtainAdminToken();
         String userUrl = adminUsersUrl() + "/" + keycloakUserId;
 
@@ -296,12 +334,23 @@ public class KeycloakAdminService {
             log.warn("UPDATE_PASSWORD Required-Action konnte nicht entfernt werden fuer {}: {}",
                     keycloakUserId, ex.getMessage());
         }
+        // Ein zwischenzeitlich gecachter Stand kann noch UPDATE_PASSWORD enthalten.
+        userCache.invalidate(keycloakUserId);
     }
 
     // ---------------------------------------------------------------------------
     // Rollen-Management
     // ---------------------------------------------------------------------------
 
+    /**
+     * Weist einem bestehenden Benutzer eine Realm-Rolle zu. Fehler werden
+     * weitergereicht.
+     */
+    public void assignRealmRole(UUID userId, Role role) {
+        userCache.invalidate(userId);
+        assignRealmRole(obtainAdminToken(), userId, role);
+    }
+
     private void assignRealmRole(String adminToken, UUID userId, Role role) {
         Map<String, Object> roleRep = getRealmRole(adminToken, role.name());
         restClient.post()
@@ -332,39 +381,8 @@ public class KeycloakAdminService {
     // Hilfsmethoden
     // ---------------------------------------------------------------------------
 
-    /**
-     * Bezieht einen Admin-Token ueber den Client-Credentials-Flow.
-     */
     private String obtainAdminToken() {
-        String tokenUrl = props.serverUrl() + "/realms/" + props.realm() + "/protocol/openid-connect/token";
-
-        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        body.add("grant_type", "client_credentials");
-        body.add("client_id", props.clientId());
-        body.add("client_secret", props.clientSecret());
-
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = restClient.post()
-                    .uri(tokenUrl)
-                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                    .body(body)
-                    .retrieve()
-                    .body(Map.class);
-
-            if (response == null || response.get("access_token") == null) {
-                throw new ApiException(HttpStatus.INTERNAL_SERVER_ERROR, "KEYCLOAK_ERROR", "Kein Admin-Token erhalten");
-            }
-            return (String) response.get("access_token");
-        } catch (HttpClientErrorException ex) {
-            String responseBody = ex.getResponseBodyAsString();
-            log.error("Keycloak Admin-Token-Fehler: {}", ex.getMessage());
-            if (responseBody != null && responseBody.contains("invalid_client_credentials")) {
-                throw new ApiException(HttpStatus.BAD_GATEWAY, "KEYCLOAK_CONFIG_ERROR",
-                        "Keycloak Client-ID oder Client-Secret ist falsch konfiguriert");
-            }
-            throw new ApiException(HttpStatus.BAD_GATEWAY, "KEYCLOAK_ERROR", "Keycloak Admin nicht erreichbar");
-        }
+        return tokenHolder.getToken();
     }
 
     private UUID findUserIdByEmail(String adminToken, String email) {
@@ -0,0 +1,170 @@
+package at.htl.ecotrack.administration.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import at.htl.ecotrack.shared.error.ApiException;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hält das Admin-Token des {@code ecotrack-backend} Service-Accounts.
+ *
+ * <p>
+ * Das Token wird bis kurz vor {@code expires_in} wiederverwendet. Gleichzeitige
+ * Anfragen mit abgelaufenem Token warten auf genau einen Client-Credentials-Aufruf.
+ * Wurde das Token seit dem letzten Bezug benutzt, wird es im Hintergrund vor
+ * Ablauf erneuert, damit Requests nicht auf Keycloak warten müssen.
+ */
+@Component
+public class KeycloakAdminTokenHolder {
+
+    private static final Logger log = LoggerFactory.getLogger(KeycloakAdminTokenHolder.class);
+
+    /** Sicherheitsabstand zum tatsächlichen Ablauf, um Uhrenabweichungen abzufangen. */
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(10);
+    /** So lange vor Ablauf wird im Hintergrund erneuert. */
+    private static final Duration REFRESH_AHEAD = Duration.ofSeconds(30);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final KeycloakAdminProperties props;
+    private final RestClient restClient;
+    private final ScheduledExecutorService refresher;
+
+    private volatile CachedToken token;
+    private volatile boolean usedSinceFetch;
+
+    public KeycloakAdminTokenHolder(KeycloakAdminProperties props, RestClient keycloakRestClient) {
+        this.props = props;
+        this.restClient = keycloakRestClient;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "keycloak-admin-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Liefert ein gültiges Admin-Token und bezieht nur dann ein neues, wenn keines
+     * mehr gültig ist.
+     */
+    public String getToken() {
+        usedSinceFetch = true;
+        CachedToken current = token;
+        if (current != null && current.isUsable(Instant.now())) {
+            return current.value();
+        }
+        return refreshIfExpired().value();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private synchronized CachedToken refreshIfExpired() {
+        CachedToken current = token;
+        if (current != null && current.isUsable(Instant.now())) {
+            return current;
+        }
+        return refresh();
+    }
+
+    private synchronized CachedToken refresh() {
+        CachedToken fetched = fetchToken();
+        token = fetched;
+        usedSinceFetch = false;
+        scheduleRefresh(fetched.lifetime());
+        return fetched;
+    }
+
+    private void scheduleRefresh(Duration lifetime) {
+        Duration delay = lifetime.minus(REFRESH_AHEAD);
+        if (delay.compareTo(lifetime.dividedBy(2)) < 0) {
+            delay = lifetime.dividedBy(2);
+        }
+        schedule(delay);
+    }
+
+    private void schedule(Duration delay) {
+        if (refresher.isShutdown()) {
+            return;
+        }
+        refresher.schedule(this::refreshInBackground, Math.max(delay.toMillis(), 1), TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshInBackground() {
+        if (!usedSinceFetch) {
+            // Im Leerlauf nicht pollen; der nächste Aufruf holt bei Bedarf ein neues Token.
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException ex) {
+            log.warn("Hintergrund-Erneuerung des Keycloak Admin-Tokens fehlgeschlagen: {}", ex.getMessage());
+            CachedToken current = token;
+            if (current != null && current.isUsable(Instant.now().plus(RETRY_DELAY))) {
+                schedule(RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Bezieht einen Admin-Token ueber den Client-Credentials-Flow.
+     */
+    private CachedToken fetchToken() {
+        String tokenUrl = props.serverUrl() + "/realms/" + props.realm() + "/protocol/openid-connect/token";
+
+        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
+        body.add("grant_type", "client_credentials");
+        body.add("client_id", props.clientId());
+        body.add("client_secret", props.clientSecret());
+
+        try {
+            Instant requestedAt = Instant.now();
+            @SuppressWarnings("unchecked")
+            Map<String, Object> response = restClient.post()
+                    .uri(tokenUrl)
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body(body)
+                    .retrieve()
+                    .body(Map.class);
+
+            if (response == null || response.get("access_token") == null) {
+                throw new ApiException(HttpStatus.INTERNAL_SERVER_ERROR, "KEYCLOAK_ERROR", "Kein Admin-Token erhalten");
+            }
+            long expiresIn = response.get("expires_in") instanceof Number n ? n.longValue() : 60;
+            return new CachedToken((String) response.get("access_token"), requestedAt,
+                    Duration.ofSeconds(Math.max(expiresIn, 1)));
+        } catch (HttpClientErrorException ex) {
+            String responseBody = ex.getResponseBodyAsString();
+            log.error("Keycloak Admin-Token-Fehler: {}", ex.getMessage());
+            if (responseBody != null && responseBody.contains("invalid_client_credentials")) {
+                throw new ApiException(HttpStatus.BAD_GATEWAY, "KEYCLOAK_CONFIG_ERROR",
+                        "Keycloak Client-ID oder Client-Secret ist falsch konfiguriert");
+            }
+            throw new ApiException(HttpStatus.BAD_GATEWAY, "KEYCLOAK_ERROR", "Keycloak Admin nicht erreichbar");
+        }
+    }
+
+    private record CachedToken(String value, Instant fetchedAt, Duration lifetime) {
+
+        boolean isUsable(Instant now) {
+            Duration skew = lifetime.compareTo(EXPIRY_SKEW.multipliedBy(2)) > 0 ? EXPIRY_SKEW : Duration.ZERO;
+            return now.isBefore(fetchedAt.plus(lifetime).minus(skew));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package at.htl.ecotrack.administration.security;
+
+import java.net.URI;
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Gemeinsamer, gepoolter HTTP-Client für den gesamten Keycloak-Verkehr.
+ *
+ * <p>
+ * Verbindungen werden per Keep-Alive wiederverwendet, die Poolgröße begrenzt die
+ * Anzahl gleichzeitiger Requests. Token-Endpoint und Admin REST API bekommen
+ * eigene Antwort-Timeouts.
+ */
+@Configuration
+public class KeycloakHttpClientConfig {
+
+    private static final String TOKEN_PATH = "/protocol/openid-connect/";
+
+    @Bean
+    PoolingHttpClientConnectionManager keycloakConnectionManager(KeycloakHttpClientProperties props) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(props.maxConnections())
+                // Alle Requests gehen an denselben Host.
+                .setMaxConnPerRoute(props.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(props.connectTimeout()))
+                        .setSocketTimeout(timeout(props.adminReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    CloseableHttpClient keycloakHttpClient(PoolingHttpClientConnectionManager keycloakConnectionManager,
+            KeycloakHttpClientProperties props) {
+        return HttpClients.custom()
+                .setConnectionManager(keycloakConnectionManager)
+                .setDefaultRequestConfig(requestConfig(props, props.adminReadTimeout()))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(props.idleTimeout().toMillis()))
+                .disableCookieManagement()
+                .build();
+    }
+
+    @Bean
+    RestClient keycloakRestClient(CloseableHttpClient keycloakHttpClient, KeycloakHttpClientProperties props) {
+        RequestConfig tokenConfig = requestConfig(props, props.tokenReadTimeout());
+        RequestConfig adminConfig = requestConfig(props, props.adminReadTimeout());
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+                keycloakHttpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(isTokenEndpoint(uri) ? tokenConfig : adminConfig);
+            return context;
+        });
+        return RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    /**
+     * Pool-Auslastung als Gauges, damit Sättigung (wartende Requests) sichtbar wird.
+     */
+    @Bean
+    MeterBinder keycloakConnectionPoolMetrics(PoolingHttpClientConnectionManager keycloakConnectionManager) {
+        return registry -> {
+            Gauge.builder("keycloak.http.pool.leased", keycloakConnectionManager,
+                    cm -> cm.getTotalStats().getLeased())
+                    .description("Verbindungen zu Keycloak, die gerade benutzt werden")
+                    .register(registry);
+            Gauge.builder("keycloak.http.pool.available", keycloakConnectionManager,
+                    cm -> cm.getTotalStats().getAvailable())
+                    .description("Freie Keep-Alive-Verbindungen zu Keycloak")
+                    .register(registry);
+            Gauge.builder("keycloak.http.pool.pending", keycloakConnectionManager,
+                    cm -> cm.getTotalStats().getPending())
+                    .description("Requests, die auf eine freie Verbindung warten")
+                    .register(registry);
+            Gauge.builder("keycloak.http.pool.max", keycloakConnectionManager,
+                    cm -> cm.getTotalStats().getMax())
+                    .description("Maximale Anzahl an Verbindungen zu Keycloak")
+                    .register(registry);
+        };
+    }
+
+    private static boolean isTokenEndpoint(URI uri) {
+        return uri.getPath() != null && uri.getPath().contains(TOKEN_PATH);
+    }
+
+    private static RequestConfig requestConfig(KeycloakHttpClientProperties props, Duration responseTimeout) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(timeout(props.poolAcquireTimeout()))
+                .setResponseTimeout(timeout(responseTimeout))
+                .build();
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+}
@@ -0,0 +1,70 @@
+package at.htl.ecotrack.administration.security;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Verbindungs- und Timeout-Einstellungen für den HTTP-Client zu Keycloak.
+ *
+ * Konfiguration in application.yml:
+ *
+ * <pre>
+ * keycloak:
+ *   http:
+ *     max-connections: 50
+ *     connect-timeout: 2s
+ *     pool-acquire-timeout: 3s
+ *     token-read-timeout: 5s
+ *     admin-read-timeout: 10s
+ *     idle-timeout: 30s
+ * </pre>
+ *
+ * @param maxConnections     obere Grenze gleichzeitiger Verbindungen (und damit
+ *                           gleichzeitiger Requests) zu Keycloak
+ * @param connectTimeout     Timeout für den TCP/TLS-Verbindungsaufbau
+ * @param poolAcquireTimeout maximale Wartezeit auf eine freie Verbindung aus dem
+ *                           Pool, bevor der Request abgebrochen wird
+ * @param tokenReadTimeout   Antwort-Timeout für den Token-Endpoint (Login,
+ *                           Logout, Client Credentials)
+ * @param adminReadTimeout   Antwort-Timeout für die Admin REST API
+ * @param idleTimeout        nach dieser Leerlaufzeit werden Verbindungen aus dem
+ *                           Pool entfernt
+ */
+@ConfigurationProperties(prefix = "keycloak.http")
+public record KeycloakHttpClientProperties(
+        Integer maxConnections,
+        Duration connectTimeout,
+        Duration poolAcquireTimeout,
+        Duration tokenReadTimeout,
+        Duration adminReadTimeout,
+        Duration idleTimeout) {
+
+    public KeycloakHttpClientProperties {
+        if (maxConnections == null || maxConnections < 1) {
+            maxConnections = 50;
+        }
+        if (connectTimeout == null) {
+            connectTimeout = Duration.ofSeconds(2);
+        }
+        if (poolAcquireTimeout == null) {
+            poolAcquireTimeout = Duration.ofSeconds(3);
+        }
+        if (tokenReadTimeout == null) {
+            tokenReadTimeout = Duration.ofSeconds(5);
+        }
+        if (adminReadTimeout == null) {
+            adminReadTimeout = Duration.ofSeconds(10);
+        }
+        if (idleTimeout == null) {
+            idleTimeout = Duration.ofSeconds(30);
+        }
+    }
+
+    /**
+     * Standardwerte, z.B. für Tests ohne Spring-Kontext.
+     */
+    public static KeycloakHttpClientProperties defaults() {
+        return new KeycloakHttpClientProperties(null, null, null, null, null, null);
+    }
+}
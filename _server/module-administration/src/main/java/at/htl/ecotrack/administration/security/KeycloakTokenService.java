@@ -30,9 +30,9 @@ public class KeycloakTokenService {
     private final RestClient restClient;
     private final KeycloakAdminProperties props;
 
-    public KeycloakTokenService(KeycloakAdminProperties props) {
+    public KeycloakTokenService(KeycloakAdminProperties props, RestClient keycloakRestClient) {
         this.props = props;
-        this.restClient = RestClient.create();
+        this.restClient = keycloakRestClient;
     }
 
     /**
@@ -0,0 +1,126 @@
+package at.htl.ecotrack.administration.security;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Kurzlebiger, größenbegrenzter Cache für Keycloak-Benutzerabfragen per E-Mail.
+ *
+ * <p>
+ * Schlüssel ist die kleingeschriebene E-Mail. "Nicht gefunden" wird ebenfalls
+ * gecacht. Benutzer mit unverifizierter E-Mail werden nicht gecacht, weil die
+ * Verifikation direkt in Keycloak passiert und keine Invalidierung auslöst.
+ */
+@Component
+public class KeycloakUserCache {
+
+    private final long ttlNanos;
+    private final int maxSize;
+
+    private final LinkedHashMap<String, Entry> byEmail;
+    private final Map<UUID, String> emailById = new HashMap<>();
+
+    public KeycloakUserCache(@Value("${keycloak.user-cache.ttl:30s}") Duration ttl,
+            @Value("${keycloak.user-cache.max-size:1000}") int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.byEmail = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > KeycloakUserCache.this.maxSize) {
+                    forgetId(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return {@code null} bei Cache-Miss, sonst das gecachte Ergebnis (leer =
+     *         Benutzer existiert nicht)
+     */
+    public synchronized Optional<Map<String, Object>> get(String email) {
+        String key = key(email);
+        Entry entry = byEmail.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.cachedAt() > ttlNanos) {
+            byEmail.remove(key);
+            forgetId(entry);
+            return null;
+        }
+        return Optional.ofNullable(entry.user());
+    }
+
+    public synchronized void put(String email, Map<String, Object> user) {
+        if (ttlNanos <= 0 || maxSize <= 0) {
+            return;
+        }
+        if (user != null && !Boolean.TRUE.equals(user.get("emailVerified"))) {
+            return;
+        }
+        String key = key(email);
+        Map<String, Object> copy = user == null ? null : Collections.unmodifiableMap(new LinkedHashMap<>(user));
+        Entry previous = byEmail.put(key, new Entry(copy, System.nanoTime()));
+        if (previous != null) {
+            forgetId(previous);
+        }
+        UUID id = idOf(copy);
+        if (id != null) {
+            emailById.put(id, key);
+        }
+    }
+
+    public synchronized void invalidate(String email) {
+        Entry removed = byEmail.remove(key(email));
+        if (removed != null) {
+            forgetId(removed);
+        }
+    }
+
+    public synchronized void invalidate(UUID keycloakUserId) {
+        String email = emailById.remove(keycloakUserId);
+        if (email != null) {
+            byEmail.remove(email);
+        }
+    }
+
+    synchronized int size() {
+        return byEmail.size();
+    }
+
+    private void forgetId(Entry entry) {
+        UUID id = idOf(entry.user());
+        if (id != null) {
+            emailById.remove(id);
+        }
+    }
+
+    private static UUID idOf(Map<String, Object> user) {
+        if (user == null || !(user.get("id") instanceof String id)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase();
+    }
+
+    private record Entry(Map<String, Object> user, long cachedAt) {
+    }
+}
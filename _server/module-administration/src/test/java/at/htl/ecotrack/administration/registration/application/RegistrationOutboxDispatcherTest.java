@@ -0,0 +1,165 @@
+package at.htl.ecotrack.administration.registration.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import at.htl.ecotrack.administration.registration.domain.RegistrationOutbox;
+import at.htl.ecotrack.administration.registration.domain.RegistrationTask;
+import at.htl.ecotrack.administration.registration.infrastructure.IdentityProvider;
+import at.htl.ecotrack.shared.model.Role;
+
+/**
+ * Unit Tests für {@link RegistrationOutboxDispatcher}: Ausführung, Retries mit
+ * Backoff, Aufgeben nach zu vielen Versuchen und abgelaufene Reservierungen.
+ */
+@ExtendWith(MockitoExtension.class)
+class RegistrationOutboxDispatcherTest {
+
+    private static final int PARALLELISM = 2;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private RegistrationOutbox outbox;
+
+    @Mock
+    private IdentityProvider identityProvider;
+
+    private RegistrationOutboxDispatcher dispatcher;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new RegistrationOutboxDispatcher(outbox, identityProvider, PARALLELISM, MAX_ATTEMPTS,
+                Duration.ofSeconds(5), Duration.ofDays(7));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    void should_executeClaimedTasks_and_markThemDone() throws InterruptedException {
+        // Arrange
+        // ASSIGN_ROLE wird nicht mehr angelegt, vorhandene Einträge werden aber noch ausgeführt.
+        RegistrationTask role = new RegistrationTask(UUID.randomUUID(), userId, RegistrationTask.Type.ASSIGN_ROLE,
+                Role.LEHRER, 1);
+        RegistrationTask mail = attempt(RegistrationTask.sendVerificationEmail(userId), 1);
+        when(outbox.claimDue(eq(PARALLELISM), any())).thenReturn(List.of(role, mail)).thenReturn(List.of());
+        when(outbox.markDone(any())).thenReturn(true);
+
+        // Act
+        int done = dispatcher.dispatch();
+
+        // Assert
+        assertThat(done).isEqualTo(2);
+        verify(identityProvider).assignRole(userId, Role.LEHRER);
+        verify(identityProvider).sendVerificationEmail(userId);
+        verify(outbox).markDone(role);
+        verify(outbox).markDone(mail);
+    }
+
+    @Test
+    void should_scheduleRetryWithBackoff_when_identityProviderFails() throws InterruptedException {
+        // Arrange
+        RegistrationTask mail = attempt(RegistrationTask.sendVerificationEmail(userId), 2);
+        when(outbox.claimDue(eq(PARALLELISM), any())).thenReturn(List.of(mail));
+        doThrow(new IllegalStateException("Keycloak nicht erreichbar"))
+                .when(identityProvider).sendVerificationEmail(userId);
+
+        // Act
+        OffsetDateTime before = OffsetDateTime.now();
+        assertThat(dispatcher.dispatch()).isZero();
+
+        // Assert: zweiter Versuch → 10 s Backoff
+        ArgumentCaptor<OffsetDateTime> nextAttempt = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(outbox).scheduleRetry(eq(mail), nextAttempt.capture(), eq("Keycloak nicht erreichbar"));
+        assertThat(nextAttempt.getValue()).isAfterOrEqualTo(before.plusSeconds(10));
+        verify(outbox, never()).markDone(any());
+        verify(outbox, never()).markFailed(any(), anyString());
+    }
+
+    @Test
+    void should_giveUp_when_maxAttemptsReached() throws InterruptedException {
+        // Arrange
+        RegistrationTask mail = attempt(RegistrationTask.sendVerificationEmail(userId), MAX_ATTEMPTS);
+        when(outbox.claimDue(eq(PARALLELISM), any())).thenReturn(List.of(mail));
+        doThrow(new IllegalStateException("Benutzer nicht gefunden"))
+                .when(identityProvider).sendVerificationEmail(userId);
+
+        // Act
+        dispatcher.dispatch();
+
+        // Assert
+        verify(outbox).markFailed(mail, "Benutzer nicht gefunden");
+        verify(outbox, never()).scheduleRetry(any(), any(), any());
+    }
+
+    @Test
+    void should_notCountTask_when_claimExpiredBeforeMarkDone() throws InterruptedException {
+        // Arrange: ein anderer Aufrufer hat den Eintrag nach Ablauf der Lease neu reserviert
+        RegistrationTask mail = attempt(RegistrationTask.sendVerificationEmail(userId), 1);
+        when(outbox.claimDue(eq(PARALLELISM), any())).thenReturn(List.of(mail));
+        when(outbox.markDone(mail)).thenReturn(false);
+
+        // Act + Assert
+        assertThat(dispatcher.dispatch()).isZero();
+    }
+
+    @Test
+    void should_returnImmediately_and_runOneLoopAtATime_when_polled() throws InterruptedException {
+        // Arrange: der Identity Provider hängt
+        RegistrationTask mail = attempt(RegistrationTask.sendVerificationEmail(userId), 1);
+        when(outbox.claimDue(eq(PARALLELISM), any())).thenReturn(List.of(mail));
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(identityProvider).sendVerificationEmail(userId);
+
+        // Act
+        dispatcher.poll();
+        dispatcher.poll();
+
+        // Assert
+        verify(identityProvider, timeout(1000)).sendVerificationEmail(userId);
+        verify(outbox, times(1)).claimDue(eq(PARALLELISM), any());
+        release.countDown();
+        verify(outbox, timeout(1000)).markDone(mail);
+    }
+
+    @Test
+    void should_doubleBackoff_upToLimit() {
+        assertThat(dispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(dispatcher.backoff(3)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(dispatcher.backoff(30)).isEqualTo(Duration.ofMinutes(15));
+    }
+
+    private static RegistrationTask attempt(RegistrationTask task, int attempts) {
+        return new RegistrationTask(task.taskId(), task.externalUserId(), task.type(), task.role(), attempts);
+    }
+}
@@ -2,10 +2,12 @@ package at.htl.ecotrack.administration.registration.application;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,8 +21,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import at.htl.ecotrack.administration.registration.domain.RegistrationOutbox;
 import at.htl.ecotrack.administration.registration.domain.RegistrationService;
+import at.htl.ecotrack.administration.registration.domain.RegistrationTask;
 import at.htl.ecotrack.administration.registration.domain.UserProfile;
 import at.htl.ecotrack.administration.registration.domain.UserProfileRepository;
 import at.htl.ecotrack.administration.registration.infrastructure.IdentityProvider;
@@ -45,6 +51,12 @@ class UserRegistrationServiceTest {
     @Mock
     private UserProfileRepository userProfileRepository;
 
+    @Mock
+    private RegistrationOutbox registrationOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private UserRegistrationService userRegistrationService;
 
     private final UUID keycloakId = UUID.randomUUID();
@@ -55,7 +67,8 @@ class UserRegistrationServiceTest {
     void setUp() {
         RegistrationProperties properties = new RegistrationProperties(allowedDomainsConfig);
         userRegistrationService = new UserRegistrationService(
-                registrationService, identityProvider, userProfileRepository, properties);
+                registrationService, identityProvider, userProfileRepository, registrationOutbox, properties,
+                new TransactionTemplate(transactionManager));
     }
 
     // --- Erfolgspfad ---
@@ -70,7 +83,7 @@ class UserRegistrationServiceTest {
         when(identityProvider.isEmailRegistered("max@htl-leoben.at")).thenReturn(false);
         when(userProfileRepository.existsByEmail("max@htl-leoben.at")).thenReturn(false);
         when(registrationService.determineInitialRole("max@htl-leoben.at")).thenReturn(Role.SCHUELER);
-        when(identityProvider.createUser(anyString(), anyString(), anyString(), anyString(), any(Role.class)))
+        when(identityProvider.createUser(anyString(), anyString(), anyString(), anyString()))
                 .thenReturn(keycloakId);
         when(userProfileRepository.save(any(UserProfile.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -90,6 +103,13 @@ class UserRegistrationServiceTest {
         assertThat(savedProfile.getEmail()).isEqualTo("max@htl-leoben.at");
         assertThat(savedProfile.getRole()).isEqualTo(Role.SCHUELER);
         assertThat(savedProfile.getExternalUserId()).isEqualTo(keycloakId);
+
+        // Verify: Rolle wird im Request zugewiesen, nur die Verifikations-E-Mail läuft über die Outbox
+        verify(identityProvider).assignRole(keycloakId, Role.SCHUELER);
+        assertThat(enqueued())
+                .extracting(RegistrationTask::externalUserId, RegistrationTask::type, RegistrationTask::role)
+                .containsExactly(tuple(keycloakId, RegistrationTask.Type.SEND_VERIFICATION_EMAIL, null));
+        verify(identityProvider, never()).sendVerificationEmail(any());
     }
 
     // --- Domain-Validierung ---
@@ -108,7 +128,7 @@ class UserRegistrationServiceTest {
                 .extracting(e -> ((ApiException) e).getCode())
                 .isEqualTo("DOMAIN_NOT_ALLOWED");
 
-        verify(identityProvider, never()).createUser(anyString(), anyString(), anyString(), anyString(), any());
+        verify(identityProvider, never()).createUser(anyString(), anyString(), anyString(), anyString());
         verify(userProfileRepository, never()).save(any());
     }
 
@@ -129,7 +149,7 @@ class UserRegistrationServiceTest {
                 .extracting(e -> ((ApiException) e).getCode())
                 .isEqualTo("EMAIL_EXISTS");
 
-        verify(identityProvider, never()).createUser(anyString(), anyString(), anyString(), anyString(), any());
+        verify(identityProvider, never()).createUser(anyString(), anyString(), anyString(), anyString());
     }
 
     // --- Duplikat-Prüfung in lokaler DB ---
@@ -150,7 +170,7 @@ class UserRegistrationServiceTest {
                 .extracting(e -> ((ApiException) e).getCode())
                 .isEqualTo("EMAIL_EXISTS");
 
-        verify(identityProvider, never()).createUser(anyString(), anyString(), anyString(), anyString(), any());
+        verify(identityProvider, never()).createUser(anyString(), anyString(), anyString(), anyString());
     }
 
     // --- E-Mail-Verfügbarkeitsprüfung ---
@@ -195,14 +215,69 @@ class UserRegistrationServiceTest {
         when(identityProvider.isEmailRegistered(anyString())).thenReturn(false);
         when(userProfileRepository.existsByEmail(anyString())).thenReturn(false);
         when(registrationService.determineInitialRole("frau.huber@lehrer.htl-leoben.at")).thenReturn(Role.LEHRER);
-        when(identityProvider.createUser(anyString(), anyString(), anyString(), anyString(), eq(Role.LEHRER)))
+        when(identityProvider.createUser(anyString(), anyString(), anyString(), anyString()))
                 .thenReturn(keycloakId);
         when(userProfileRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         // Act
         userRegistrationService.registerUser(command);
 
-        // Assert: createUser wurde mit LEHRER aufgerufen
-        verify(identityProvider).createUser(anyString(), anyString(), anyString(), anyString(), eq(Role.LEHRER));
+        // Assert: Rolle LEHRER ist im IdP gesetzt, bevor die Registrierung abschließt
+        verify(identityProvider).assignRole(keycloakId, Role.LEHRER);
+    }
+
+    // --- Outbox & Kompensation ---
+
+    @Test
+    void should_deleteIdpUser_when_localPersistenceFails() {
+        // Arrange
+        RegisterUserCommand command = new RegisterUserCommand(
+                "lena@htl-leoben.at", "password123", "Lena", "Lang", null);
+
+        when(registrationService.isRegistrationAllowed(anyString(), anyList())).thenReturn(true);
+        when(identityProvider.isEmailRegistered(anyString())).thenReturn(false);
+        when(userProfileRepository.existsByEmail(anyString())).thenReturn(false);
+        when(registrationService.determineInitialRole(anyString())).thenReturn(Role.SCHUELER);
+        when(identityProvider.createUser(anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(keycloakId);
+        doThrow(new IllegalStateException("DB nicht erreichbar")).when(userProfileRepository).save(any());
+
+        // Act & Assert
+        assertThatThrownBy(() -> userRegistrationService.registerUser(command))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(identityProvider).deleteUser(keycloakId);
+        verify(registrationOutbox, never()).enqueue(anyList());
+    }
+
+    @Test
+    void should_deleteIdpUser_when_roleAssignmentFails() {
+        // Arrange
+        RegisterUserCommand command = new RegisterUserCommand(
+                "frau.lang@lehrer.htl-leoben.at", "password123", "Lena", "Lang", null);
+
+        when(registrationService.isRegistrationAllowed(anyString(), anyList())).thenReturn(true);
+        when(identityProvider.isEmailRegistered(anyString())).thenReturn(false);
+        when(userProfileRepository.existsByEmail(anyString())).thenReturn(false);
+        when(registrationService.determineInitialRole(anyString())).thenReturn(Role.LEHRER);
+        when(identityProvider.createUser(anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(keycloakId);
+        doThrow(new IllegalStateException("Keycloak nicht erreichbar"))
+                .when(identityProvider).assignRole(keycloakId, Role.LEHRER);
+
+        // Act & Assert
+        assertThatThrownBy(() -> userRegistrationService.registerUser(command))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(identityProvider).deleteUser(keycloakId);
+        verify(userProfileRepository, never()).save(any());
+        verify(registrationOutbox, never()).enqueue(anyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RegistrationTask> enqueued() {
+        ArgumentCaptor<List<RegistrationTask>> captor = ArgumentCaptor.forClass(List.class);
+        verify(registrationOutbox).enqueue(captor.capture());
+        return captor.getValue();
     }
 }
@@ -0,0 +1,123 @@
+package at.htl.ecotrack.administration.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Prüft das Token-Caching gegen einen lokalen Keycloak-Stub.
+ */
+class KeycloakAdminTokenHolderTest {
+
+    private static final int CONCURRENT_LOGINS = 32;
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger userRequests = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private KeycloakAdminTokenHolder tokenHolder;
+    private KeycloakAdminService adminService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/realms/ecotrack/protocol/openid-connect/token", exchange -> {
+            int count = tokenRequests.incrementAndGet();
+            sleep(100);
+            respond(exchange, "{\"access_token\":\"token-" + count + "\",\"expires_in\":300}");
+        });
+        server.createContext("/admin/realms/ecotrack/users", exchange -> {
+            userRequests.incrementAndGet();
+            String auth = exchange.getRequestHeaders().getFirst("Authorization");
+            respond(exchange, "[{\"id\":\"00000000-0000-0000-0000-000000000001\",\"auth\":\"" + auth + "\"}]");
+        });
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        KeycloakAdminProperties props = new KeycloakAdminProperties(
+                "http://127.0.0.1:" + server.getAddress().getPort(), "ecotrack", "ecotrack-backend", "secret");
+        RestClient restClient = RestClient.create();
+        tokenHolder = new KeycloakAdminTokenHolder(props, restClient);
+        adminService = new KeycloakAdminService(props, tokenHolder, new KeycloakUserCache(Duration.ZERO, 0),
+                restClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenHolder.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoginsShareOneTokenRequest() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_LOGINS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return adminService.getUserByEmail("schueler@ecotrack.test");
+                }));
+            }
+            start.countDown();
+            for (Future<Map<String, Object>> result : results) {
+                assertThat(result.get()).containsEntry("auth", "Bearer token-1");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(userRequests.get()).isEqualTo(CONCURRENT_LOGINS);
+        assertThat(tokenRequests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedTokenIsReusedAcrossSequentialCalls() {
+        for (int i = 0; i < 5; i++) {
+            adminService.getUserByEmail("lehrer@ecotrack.test");
+            adminService.getUserRealmRoles(UUID.randomUUID());
+        }
+
+        assertThat(tokenRequests.get()).isEqualTo(1);
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package at.htl.ecotrack.administration.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Prüft Poolgrenze, Keep-Alive und Timeouts des Keycloak-HTTP-Clients gegen einen
+ * lokalen Stub.
+ */
+class KeycloakHttpClientConfigTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private CloseableHttpClient httpClient;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private RestClient restClient;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/admin/realms/ecotrack/users", exchange -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            sleep(50);
+            inFlight.decrementAndGet();
+            respond(exchange, "[]");
+        });
+        server.createContext("/realms/ecotrack/protocol/openid-connect/token", exchange -> {
+            sleep(1_000);
+            respond(exchange, "{}");
+        });
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        KeycloakHttpClientProperties props = new KeycloakHttpClientProperties(
+                2, null, Duration.ofSeconds(10), Duration.ofMillis(200), null, null);
+        KeycloakHttpClientConfig config = new KeycloakHttpClientConfig();
+        connectionManager = config.keycloakConnectionManager(props);
+        httpClient = config.keycloakHttpClient(connectionManager, props);
+        restClient = config.keycloakRestClient(httpClient, props);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsAreBoundedByPoolSize() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(12);
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 12; i++) {
+                results.add(pool.submit(() -> restClient.get()
+                        .uri(baseUrl + "/admin/realms/ecotrack/users")
+                        .retrieve()
+                        .body(String.class)));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("[]");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+        assertThat(connectionManager.getTotalStats().getAvailable()).isBetween(1, 2);
+    }
+
+    @Test
+    void tokenEndpointUsesItsOwnResponseTimeout() {
+        assertThatThrownBy(() -> restClient.post()
+                .uri(baseUrl + "/realms/ecotrack/protocol/openid-connect/token")
+                .retrieve()
+                .body(String.class))
+                .isInstanceOf(ResourceAccessException.class);
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
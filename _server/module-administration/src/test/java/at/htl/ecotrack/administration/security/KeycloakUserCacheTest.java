@@ -0,0 +1,74 @@
+package at.htl.ecotrack.administration.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class KeycloakUserCacheTest {
+
+    private static final UUID USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Test
+    void cachesVerifiedUsersByLowercasedEmail() {
+        KeycloakUserCache cache = new KeycloakUserCache(Duration.ofMinutes(1), 10);
+
+        cache.put("Anna@EcoTrack.test", verifiedUser(USER_ID));
+
+        assertThat(cache.get("anna@ecotrack.test")).hasValueSatisfying(user -> assertThat(user)
+                .containsEntry("id", USER_ID.toString()));
+    }
+
+    @Test
+    void cachesNotFoundButNotUnverifiedUsers() {
+        KeycloakUserCache cache = new KeycloakUserCache(Duration.ofMinutes(1), 10);
+
+        cache.put("unknown@ecotrack.test", null);
+        cache.put("pending@ecotrack.test", Map.of("id", USER_ID.toString(), "emailVerified", false));
+
+        assertThat(cache.get("unknown@ecotrack.test")).isEqualTo(Optional.empty());
+        assertThat(cache.get("pending@ecotrack.test")).isNull();
+    }
+
+    @Test
+    void invalidatesByKeycloakUserId() {
+        KeycloakUserCache cache = new KeycloakUserCache(Duration.ofMinutes(1), 10);
+        cache.put("anna@ecotrack.test", verifiedUser(USER_ID));
+
+        cache.invalidate(USER_ID);
+
+        assertThat(cache.get("anna@ecotrack.test")).isNull();
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        KeycloakUserCache cache = new KeycloakUserCache(Duration.ofMillis(20), 10);
+        cache.put("anna@ecotrack.test", verifiedUser(USER_ID));
+
+        Thread.sleep(40);
+
+        assertThat(cache.get("anna@ecotrack.test")).isNull();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        KeycloakUserCache cache = new KeycloakUserCache(Duration.ofMinutes(1), 2);
+        cache.put("a@ecotrack.test", null);
+        cache.put("b@ecotrack.test", null);
+        cache.get("a@ecotrack.test");
+
+        cache.put("c@ecotrack.test", null);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a@ecotrack.test")).isNotNull();
+        assertThat(cache.get("b@ecotrack.test")).isNull();
+    }
+
+    private static Map<String, Object> verifiedUser(UUID id) {
+        return Map.of("id", id.toString(), "emailVerified", true);
+    }
+}
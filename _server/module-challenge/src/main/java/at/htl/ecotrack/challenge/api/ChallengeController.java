@@ -42,12 +42,18 @@ public class ChallengeController {
     }
 
     @GetMapping("/{challengeId}")
-    public ChallengeDtos.ChallengeDetailResponse getChallenge(@PathVariable UUID challengeId) {
+    public ChallengeDtos.ChallengeDetailResponse getChallenge(@PathVariable("challengeId") UUID challengeId) {
         return challengeService.getChallengeDetail(challengeId);
     }
 
     @GetMapping("/{challengeId}/progress")
-    public ChallengeDtos.ChallengeProgressResponse getProgress(@PathVariable UUID challengeId) {
+    public ChallengeDtos.ChallengeProgressResponse getProgress(@PathVariable("challengeId") UUID challengeId) {
         return challengeService.getChallengeProgress(challengeId);
     }
+
+    @PostMapping("/{challengeId}/progress/rebuild")
+    public ChallengeDtos.ChallengeProgressResponse rebuildProgress(@AuthenticationPrincipal CurrentUser currentUser,
+                                                                   @PathVariable("challengeId") UUID challengeId) {
+        return challengeService.rebuildChallengeProgress(currentUser, challengeId);
+    }
 }
@@ -25,7 +25,7 @@ public class DashboardController {
 
     @GetMapping("/class/{classId}")
     public ChallengeDtos.ClassSummaryResponse getClassDashboard(@AuthenticationPrincipal CurrentUser currentUser,
-                                                                @PathVariable UUID classId,
+                                                                @PathVariable("classId") UUID classId,
                                                                 @RequestParam(name = "period", required = false) PeriodType period) {
         return challengeService.getClassDashboard(currentUser, classId, period);
     }
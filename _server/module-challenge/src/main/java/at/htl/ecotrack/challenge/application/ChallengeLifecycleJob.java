@@ -0,0 +1,69 @@
+package at.htl.ecotrack.challenge.application;
+
+import at.htl.ecotrack.challenge.domain.ChallengeProgressRepository;
+import at.htl.ecotrack.challenge.domain.ChallengeRepository;
+import at.htl.ecotrack.scoring.application.ActivityEventDispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Schreibt den Status der Challenges an der Tagesgrenze fort (DRAFT → ACTIVE → CLOSED).
+ *
+ * <p>
+ * Beim Schließen wird der Stand aus {@code challenge_progress} in die Challenge eingefroren und
+ * die Zeile der Projektion entfernt; geschlossene Challenges werden danach nie mehr neu berechnet.
+ * Vorher werden alle offenen Activity-Events zugestellt, damit der Endstand vollständig ist.
+ * Läuft zusätzlich beim Start, falls die Anwendung über Mitternacht nicht lief.
+ */
+@Component
+public class ChallengeLifecycleJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ChallengeLifecycleJob.class);
+
+    private final ChallengeRepository challengeRepository;
+    private final ChallengeProgressRepository progressRepository;
+    private final ActivityEventDispatcher eventDispatcher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ChallengeLifecycleJob(ChallengeRepository challengeRepository,
+                                 ChallengeProgressRepository progressRepository,
+                                 ActivityEventDispatcher eventDispatcher,
+                                 TransactionTemplate transactionTemplate) {
+        this.challengeRepository = challengeRepository;
+        this.progressRepository = progressRepository;
+        this.eventDispatcher = eventDispatcher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ecotrack.challenges.lifecycle-cron:0 5 0 * * *}")
+    public void run() {
+        Transitions transitions = transition(LocalDate.now());
+        if (transitions.activated() > 0 || transitions.closed() > 0) {
+            log.info("Challenges: {} aktiviert, {} geschlossen", transitions.activated(), transitions.closed());
+        }
+    }
+
+    public Transitions transition(LocalDate today) {
+        eventDispatcher.replayPendingBefore(OffsetDateTime.now());
+        return transactionTemplate.execute(status -> {
+            int activated = challengeRepository.activateStarted(today);
+            int closed = challengeRepository.closeEnded(today);
+            if (closed > 0) {
+                progressRepository.deleteFrozen();
+            }
+            return new Transitions(activated, closed);
+        });
+    }
+
+    public record Transitions(int activated, int closed) {
+    }
+}
@@ -0,0 +1,74 @@
+package at.htl.ecotrack.challenge.application;
+
+import at.htl.ecotrack.challenge.domain.Challenge;
+import at.htl.ecotrack.challenge.domain.ChallengeProgressRepository;
+import at.htl.ecotrack.challenge.domain.ChallengeRepository;
+import at.htl.ecotrack.scoring.application.ActivityRecordedListener;
+import at.htl.ecotrack.scoring.domain.ActivityRecorded;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Schreibt {@code challenge_progress} fort: Jede Aktivität zählt für alle Challenges der Klasse
+ * des Schülers, in deren Zeitraum ihr {@code activity_date} fällt.
+ */
+@Component
+public class ChallengeProgressProjection implements ActivityRecordedListener {
+
+    private final ChallengeRepository challengeRepository;
+    private final ChallengeProgressRepository progressRepository;
+    private final EcoUserProfileService profileService;
+
+    public ChallengeProgressProjection(ChallengeRepository challengeRepository,
+                                       ChallengeProgressRepository progressRepository,
+                                       EcoUserProfileService profileService) {
+        this.challengeRepository = challengeRepository;
+        this.progressRepository = progressRepository;
+        this.profileService = profileService;
+    }
+
+    @Override
+    public void onActivitiesRecorded(List<ActivityRecorded> events) {
+        Map<UUID, UUID> classIds = profileService.getClassIdsByEcoUserId(
+                events.stream().map(ActivityRecorded::ecoUserId).distinct().toList());
+        if (classIds.isEmpty()) {
+            return;
+        }
+        LocalDate from = events.stream().map(ActivityRecorded::activityDate).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate to = events.stream().map(ActivityRecorded::activityDate).max(Comparator.naturalOrder()).orElseThrow();
+        Map<UUID, List<Challenge>> challengesByClass = new HashMap<>();
+        for (Challenge challenge : challengeRepository.findOverlapping(classIds.values().stream().distinct().toList(), from, to)) {
+            challengesByClass.computeIfAbsent(challenge.getClassId(), id -> new ArrayList<>()).add(challenge);
+        }
+
+        // Sortiert, damit parallele Batches die Zeilen in derselben Reihenfolge sperren.
+        Map<UUID, Delta> deltas = new TreeMap<>();
+        for (ActivityRecorded event : events) {
+            UUID classId = classIds.get(event.ecoUserId());
+            for (Challenge challenge : challengesByClass.getOrDefault(classId, List.of())) {
+                if (!event.activityDate().isBefore(challenge.getStartDate())
+                        && !event.activityDate().isAfter(challenge.getEndDate())) {
+                    deltas.merge(challenge.getChallengeId(), new Delta(event.points(), 1), Delta::plus);
+                }
+            }
+        }
+        deltas.forEach((challengeId, delta) ->
+                progressRepository.add(challengeId, delta.points(), delta.activityCount()));
+    }
+
+    private record Delta(long points, long activityCount) {
+
+        Delta plus(Delta other) {
+            return new Delta(points + other.points, activityCount + other.activityCount);
+        }
+    }
+}
@@ -4,17 +4,19 @@ import at.htl.ecotrack.administration.domain.SchoolClass;
 import at.htl.ecotrack.administration.domain.SchoolClassRepository;
 import at.htl.ecotrack.shared.security.CurrentUser;
 import at.htl.ecotrack.challenge.domain.Challenge;
+import at.htl.ecotrack.challenge.domain.ChallengeProgress;
+import at.htl.ecotrack.challenge.domain.ChallengeProgressRepository;
 import at.htl.ecotrack.challenge.domain.ChallengeRepository;
-import at.htl.ecotrack.scoring.application.ScoringService;
-import at.htl.ecotrack.scoring.domain.ActivityEntry;
-import at.htl.ecotrack.scoring.domain.ActivityEntryRepository;
+import at.htl.ecotrack.scoring.application.ActivityStatistics;
 import at.htl.ecotrack.shared.error.ApiException;
+import at.htl.ecotrack.shared.id.UuidV7;
 import at.htl.ecotrack.shared.model.ChallengeStatus;
 import at.htl.ecotrack.shared.model.GoalUnit;
 import at.htl.ecotrack.shared.model.Level;
 import at.htl.ecotrack.shared.model.PeriodType;
 import at.htl.ecotrack.shared.model.Role;
 import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
 import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -25,10 +27,10 @@ import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class ChallengeService {
@@ -36,19 +38,19 @@ public class ChallengeService {
     private final ChallengeRepository challengeRepository;
     private final SchoolClassRepository classRepository;
     private final EcoUserProfileService profileService;
-    private final ActivityEntryRepository activityEntryRepository;
-    private final ScoringService scoringService;
+    private final ChallengeProgressRepository progressRepository;
+    private final ActivityStatistics activityStatistics;
 
     public ChallengeService(ChallengeRepository challengeRepository,
                             SchoolClassRepository classRepository,
                             EcoUserProfileService profileService,
-                            ActivityEntryRepository activityEntryRepository,
-                            ScoringService scoringService) {
+                            ChallengeProgressRepository progressRepository,
+                            ActivityStatistics activityStatistics) {
         this.challengeRepository = challengeRepository;
         this.classRepository = classRepository;
         this.profileService = profileService;
-        this.activityEntryRepository = activityEntryRepository;
-        this.scoringService = scoringService;
+        this.progressRepository = progressRepository;
+        this.activityStatistics = activityStatistics;
     }
 
     @Transactional
@@ -69,7 +71,7 @@ public class ChallengeService {
                 });
 
         Challenge challenge = new Challenge();
-        challenge.setChallengeId(UUID.randomUUID());
+        challenge.setChallengeId(UuidV7.generate());
         challenge.setTitle(request.title());
         challenge.setDescription(request.description());
         challenge.setGoalValue(request.goalValue());
@@ -81,23 +83,25 @@ public class ChallengeService {
         challenge.setCreatedBy(currentUser.userId());
         challenge.setStatus(computeStatus(challenge));
 
-        Challenge saved = challengeRepository.save(challenge);
+        Challenge saved = challengeRepository.saveAndFlush(challenge);
+        // Startet die Challenge in der Vergangenheit, zählen bereits erfasste Aktivitäten mit.
+        progressRepository.rebuild(List.of(saved.getChallengeId()));
         return toChallengeResponse(saved);
     }
 
+    @Transactional(readOnly = true)
     public List<ChallengeDtos.ChallengeResponse> getMyChallenges(CurrentUser currentUser, ChallengeStatus status) {
-        EcoUserProfile profile = profileService.getByUserId(currentUser.userId());
-        if (profile.getClassId() == null) {
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
+        if (profile.classId() == null) {
             return List.of();
         }
-        List<Challenge> challenges = challengeRepository.findByClassId(profile.getClassId());
-
-        return challenges.stream().map(challenge -> {
-            challenge.setStatus(computeStatus(challenge));
-            return toChallengeResponse(challenge);
-        }).filter(challenge -> status == null || challenge.status() == status).toList();
+        List<Challenge> challenges = status == null
+                ? challengeRepository.findByClassId(profile.classId())
+                : challengeRepository.findByClassIdAndStatus(profile.classId(), status);
+        return challenges.stream().map(this::toChallengeResponse).toList();
     }
 
+    @Transactional(readOnly = true)
     public ChallengeDtos.ChallengeDetailResponse getChallengeDetail(UUID challengeId) {
         Challenge challenge = loadChallenge(challengeId);
         ChallengeDtos.ChallengeResponse base = toChallengeResponse(challenge);
@@ -112,29 +116,50 @@ public class ChallengeService {
                 base.classId(),
                 base.className(),
                 base.createdBy(),
-                getChallengeProgress(challengeId),
-                profileService.getByClassId(challenge.getClassId()).size()
+                toProgressResponse(challenge),
+                (int) profileService.countByClassId(challenge.getClassId())
         );
     }
 
+    @Transactional(readOnly = true)
     public ChallengeDtos.ChallengeProgressResponse getChallengeProgress(UUID challengeId) {
+        return toProgressResponse(loadChallenge(challengeId));
+    }
+
+    /**
+     * Berechnet den Fortschritt einer Challenge aus den Aktivitäten neu, z.B. nach einem
+     * Klassenwechsel oder nachträglich korrigierten Daten.
+     */
+    @Transactional
+    public ChallengeDtos.ChallengeProgressResponse rebuildChallengeProgress(CurrentUser currentUser, UUID challengeId) {
+        if (currentUser.role() != Role.LEHRER && currentUser.role() != Role.ADMIN) {
+            throw new ApiException(HttpStatus.FORBIDDEN, "FORBIDDEN", "Keine Berechtigung");
+        }
         Challenge challenge = loadChallenge(challengeId);
-        List<EcoUserProfile> profiles = profileService.getByClassId(challenge.getClassId());
-        List<UUID> ecoUserIds = profiles.stream().map(EcoUserProfile::getEcoUserId).toList();
-
-        double currentValue;
-        if (challenge.getGoalUnit() == GoalUnit.POINTS) {
-            currentValue = activityEntryRepository
-                    .findByEcoUserIdInAndActivityDateBetween(ecoUserIds, challenge.getStartDate(), challenge.getEndDate())
-                    .stream()
-                    .mapToInt(ActivityEntry::getPoints)
-                    .sum();
-        } else {
-            currentValue = activityEntryRepository
-                    .findByEcoUserIdInAndActivityDateBetween(ecoUserIds, challenge.getStartDate(), challenge.getEndDate())
-                    .size();
+        if (challenge.getStatus() == ChallengeStatus.CLOSED) {
+            throw new ApiException(HttpStatus.CONFLICT, "CHALLENGE_CLOSED", "Der Endstand geschlossener Challenges ist eingefroren");
         }
+        progressRepository.rebuild(List.of(challengeId));
+        return toProgressResponse(challenge);
+    }
 
+    private ChallengeDtos.ChallengeProgressResponse toProgressResponse(Challenge challenge) {
+        if (challenge.getFinalValue() != null) {
+            return toProgressResponse(challenge, challenge.getFinalValue().doubleValue());
+        }
+        return toProgressResponse(challenge, progressRepository.findById(challenge.getChallengeId()).orElse(null));
+    }
+
+    private ChallengeDtos.ChallengeProgressResponse toProgressResponse(Challenge challenge, ChallengeProgress progress) {
+        if (progress == null) {
+            return toProgressResponse(challenge, 0d);
+        }
+        return toProgressResponse(challenge, challenge.getGoalUnit() == GoalUnit.POINTS
+                ? progress.getPoints()
+                : progress.getActivityCount());
+    }
+
+    private ChallengeDtos.ChallengeProgressResponse toProgressResponse(Challenge challenge, double currentValue) {
         double percentage = challenge.getGoalValue() <= 0 ? 0d : Math.min(100d, (currentValue / challenge.getGoalValue()) * 100d);
         boolean completed = currentValue >= challenge.getGoalValue();
 
@@ -147,6 +172,7 @@ public class ChallengeService {
         );
     }
 
+    @Transactional(readOnly = true)
     public ChallengeDtos.ClassSummaryResponse getClassDashboard(CurrentUser currentUser, UUID classId, PeriodType period) {
         if (currentUser.role() != Role.LEHRER && currentUser.role() != Role.ADMIN) {
             throw new ApiException(HttpStatus.FORBIDDEN, "FORBIDDEN", "Keine Berechtigung");
@@ -160,55 +186,50 @@ public class ChallengeService {
         LocalDate end = LocalDate.now();
         LocalDate start = switch (period == null ? PeriodType.TOTAL : period) {
             case TOTAL -> LocalDate.of(1970, 1, 1);
-            case MONTH -> end.minusDays(30);
-            case WEEK -> end.minusDays(7);
+            // Beide Grenzen inklusive, wie die Ranglisten: 30 bzw. 7 Kalendertage bis heute.
+            case MONTH -> end.minusDays(29);
+            case WEEK -> end.minusDays(6);
         };
 
-        List<ActivityEntry> entries = ecoIds.isEmpty()
-                ? List.of()
-                : activityEntryRepository.findByEcoUserIdInAndActivityDateBetween(ecoIds, start, end);
-
-        int totalPoints = entries.stream().mapToInt(ActivityEntry::getPoints).sum();
-        int totalActivities = entries.size();
-        int activeStudents = (int) entries.stream().map(ActivityEntry::getEcoUserId).distinct().count();
+        ActivityStatistics.GroupStatistics statistics = activityStatistics.forUsers(ecoIds, start, end);
 
-        List<ChallengeDtos.ChallengeSummary> challengeSummaries = challengeRepository.findByClassId(classId)
-                .stream()
+        List<Challenge> activeChallenges = challengeRepository.findByClassIdAndStatus(classId, ChallengeStatus.ACTIVE);
+        Map<UUID, ChallengeProgress> progressByChallenge = new HashMap<>();
+        progressRepository.findAllById(activeChallenges.stream().map(Challenge::getChallengeId).toList())
+                .forEach(progress -> progressByChallenge.put(progress.getChallengeId(), progress));
+        List<ChallengeDtos.ChallengeSummary> challengeSummaries = activeChallenges.stream()
                 .map(challenge -> {
-                    ChallengeDtos.ChallengeProgressResponse progress = getChallengeProgress(challenge.getChallengeId());
                     int remaining = (int) ChronoUnit.DAYS.between(LocalDate.now(), challenge.getEndDate());
                     return new ChallengeDtos.ChallengeSummary(
                             challenge.getChallengeId(),
                             challenge.getTitle(),
-                            computeStatus(challenge),
-                            progress.percentage(),
+                            ChallengeStatus.ACTIVE,
+                            toProgressResponse(challenge, progressByChallenge.get(challenge.getChallengeId())).percentage(),
                             Math.max(remaining, 0)
                     );
                 })
-                .filter(ch -> ch.status() == ChallengeStatus.ACTIVE)
                 .toList();
 
-        Map<UUID, List<ActivityEntry>> byAction = entries.stream().collect(Collectors.groupingBy(ActivityEntry::getActionDefinitionId));
-        List<ChallengeDtos.ActionStats> topActions = byAction.values().stream()
-                .map(list -> new ChallengeDtos.ActionStats(
-                        list.getFirst().getActionDefinitionId(),
-                        list.getFirst().getActionName(),
-                        list.size(),
-                        list.stream().mapToInt(ActivityEntry::getPoints).sum()
+        List<ChallengeDtos.ActionStats> topActions = statistics.byAction().stream()
+                .map(total -> new ChallengeDtos.ActionStats(
+                        total.actionDefinitionId(),
+                        total.actionName(),
+                        (int) total.activityCount(),
+                        (int) total.points()
                 ))
                 .sorted(Comparator.comparingInt(ChallengeDtos.ActionStats::totalPoints).reversed())
                 .limit(3)
                 .toList();
 
-        List<ChallengeDtos.StudentSummary> topStudents = buildTopStudents(profiles, start, end);
+        List<ChallengeDtos.StudentSummary> topStudents = buildTopStudents(profiles, statistics.pointsByUser());
 
         return new ChallengeDtos.ClassSummaryResponse(
                 classId,
                 schoolClass.getName(),
                 period == null ? PeriodType.TOTAL : period,
-                totalPoints,
-                totalActivities,
-                activeStudents,
+                (int) statistics.points(),
+                (int) statistics.activityCount(),
+                (int) statistics.activeUsers(),
                 profiles.size(),
                 challengeSummaries,
                 topActions,
@@ -216,10 +237,11 @@ public class ChallengeService {
         );
     }
 
-    private List<ChallengeDtos.StudentSummary> buildTopStudents(List<EcoUserProfile> profiles, LocalDate start, LocalDate end) {
+    private List<ChallengeDtos.StudentSummary> buildTopStudents(List<EcoUserProfile> profiles,
+                                                                Map<UUID, Long> pointsByUser) {
         List<StudentTmp> rows = new ArrayList<>();
         for (EcoUserProfile profile : profiles) {
-            int points = scoringService.getUserPointsInRange(profile.getEcoUserId(), start, end);
+            int points = pointsByUser.getOrDefault(profile.getEcoUserId(), 0L).intValue();
             rows.add(new StudentTmp(profile, points));
         }
 
@@ -259,13 +281,12 @@ public class ChallengeService {
 
     private Challenge loadChallenge(UUID challengeId) {
         return challengeRepository.findById(challengeId)
-                .map(challenge -> {
-                    challenge.setStatus(computeStatus(challenge));
-                    return challenge;
-                })
                 .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "CHALLENGE_NOT_FOUND", "Challenge nicht gefunden"));
     }
 
+    /**
+     * Nur beim Anlegen; danach schreibt der {@link ChallengeLifecycleJob} den Status fort.
+     */
     private ChallengeStatus computeStatus(Challenge challenge) {
         LocalDate now = LocalDate.now();
         if (now.isAfter(challenge.getEndDate())) {
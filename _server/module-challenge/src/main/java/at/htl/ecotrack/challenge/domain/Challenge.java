@@ -7,9 +7,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -17,7 +21,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "challenges")
-public class Challenge {
+public class Challenge implements Persistable<UUID> {
 
     @Id
     @Column(name = "challenge_id", nullable = false)
@@ -55,12 +59,21 @@ public class Challenge {
     @Column(name = "created_by", nullable = false)
     private UUID createdBy;
 
+    /**
+     * Eingefrorener Endstand (Punkte bzw. Aktivitäten), gesetzt beim Schließen der Challenge.
+     */
+    @Column(name = "final_value")
+    private Double finalValue;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
     @Column(name = "updated_at", nullable = false)
     private OffsetDateTime updatedAt;
 
+    @Transient
+    private boolean newEntity = true;
+
     @PrePersist
     void onCreate() {
         OffsetDateTime now = OffsetDateTime.now();
@@ -73,6 +86,22 @@ public class Challenge {
         updatedAt = OffsetDateTime.now();
     }
 
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public UUID getId() {
+        return challengeId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
     public UUID getChallengeId() {
         return challengeId;
     }
@@ -160,4 +189,8 @@ public class Challenge {
     public void setCreatedBy(UUID createdBy) {
         this.createdBy = createdBy;
     }
+
+    public Double getFinalValue() {
+        return finalValue;
+    }
 }
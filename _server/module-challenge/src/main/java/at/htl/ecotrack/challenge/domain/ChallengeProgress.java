@@ -0,0 +1,47 @@
+package at.htl.ecotrack.challenge.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Aktueller Stand einer Challenge: Punkte und Anzahl der Aktivitäten der Klasse im
+ * Challenge-Zeitraum. Wird von der {@code ChallengeProgressProjection} fortgeschrieben.
+ */
+@Entity
+@Table(name = "challenge_progress")
+public class ChallengeProgress {
+
+    @Id
+    @Column(name = "challenge_id", nullable = false)
+    private UUID challengeId;
+
+    @Column(name = "points", nullable = false)
+    private long points;
+
+    @Column(name = "activity_count", nullable = false)
+    private long activityCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    public UUID getChallengeId() {
+        return challengeId;
+    }
+
+    public long getPoints() {
+        return points;
+    }
+
+    public long getActivityCount() {
+        return activityCount;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
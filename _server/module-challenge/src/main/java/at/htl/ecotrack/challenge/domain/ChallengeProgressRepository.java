@@ -0,0 +1,91 @@
+package at.htl.ecotrack.challenge.domain;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ChallengeProgressRepository extends JpaRepository<ChallengeProgress, UUID> {
+
+    /**
+     * Legt die Zeile bei Bedarf an und addiert dann; ohne Zeile (z.B. während {@link #rebuild})
+     * ginge das Delta sonst verloren. Eingefrorene Challenges bekommen keine Zeile mehr.
+     */
+    default void add(UUID challengeId, long points, long activityCount) {
+        insertIfMissing(challengeId);
+        increment(challengeId, points, activityCount);
+    }
+
+    @Modifying
+    @Query(value = """
+            insert into challenge_progress(challenge_id, points, activity_count, updated_at)
+            select challenge_id, 0, 0, current_timestamp from challenges
+            where challenge_id = :challengeId and final_value is null
+            on conflict do nothing
+            """, nativeQuery = true)
+    void insertIfMissing(@Param("challengeId") UUID challengeId);
+
+    @Modifying
+    @Query(value = """
+            update challenge_progress
+            set points = points + :points, activity_count = activity_count + :activityCount,
+                updated_at = current_timestamp
+            where challenge_id = :challengeId
+            """, nativeQuery = true)
+    void increment(@Param("challengeId") UUID challengeId,
+                   @Param("points") long points,
+                   @Param("activityCount") long activityCount);
+
+    @Modifying
+    @Query(value = """
+            delete from challenge_progress
+            where challenge_id in (select challenge_id from challenges where final_value is not null)
+            """, nativeQuery = true)
+    int deleteFrozen();
+
+    @Modifying
+    @Query(value = "delete from challenge_progress where challenge_id in (:challengeIds)", nativeQuery = true)
+    void deleteByChallengeIds(@Param("challengeIds") Collection<UUID> challengeIds);
+
+    /**
+     * Aktivitäten mit noch offenem Event bleiben außen vor, die zählt die Projektion beim Zustellen.
+     */
+    @Modifying
+    @Query(value = """
+            insert into challenge_progress(challenge_id, points, activity_count, updated_at)
+            select c.challenge_id, coalesce(sum(a.points), 0), count(a.activity_entry_id), current_timestamp
+            from challenges c
+            left join eco_user_profiles p on p.class_id = c.class_id
+            left join activity_entries a on a.eco_user_id = p.eco_user_id
+                and a.activity_date between c.start_date and c.end_date
+                and not exists (select 1 from activity_events e
+                                where e.activity_entry_id = a.activity_entry_id and e.processed_at is null)
+            where c.challenge_id in (:challengeIds)
+            group by c.challenge_id
+            """, nativeQuery = true)
+    void insertFromActivities(@Param("challengeIds") Collection<UUID> challengeIds);
+
+    /**
+     * Sperrt die Challenges bis zum Ende der Transaktion. Die Projektion wartet dann beim Anlegen der
+     * Fortschrittszeile auf die Fremdschlüsselprüfung, statt zwischen Löschen und Neuberechnen zu schreiben.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Challenge c where c.challengeId in :challengeIds order by c.challengeId")
+    List<Challenge> lockChallenges(@Param("challengeIds") Collection<UUID> challengeIds);
+
+    /**
+     * Berechnet den Fortschritt der angegebenen Challenges aus {@code activity_entries} neu,
+     * z.B. nach einem Klassenwechsel oder beim Anlegen einer Challenge mit Start in der Vergangenheit.
+     */
+    default void rebuild(Collection<UUID> challengeIds) {
+        lockChallenges(challengeIds);
+        deleteByChallengeIds(challengeIds);
+        insertFromActivities(challengeIds);
+    }
+}
@@ -2,7 +2,12 @@ package at.htl.ecotrack.challenge.domain;
 
 import at.htl.ecotrack.shared.model.ChallengeStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,4 +16,45 @@ public interface ChallengeRepository extends JpaRepository<Challenge, UUID> {
     List<Challenge> findByClassId(UUID classId);
     List<Challenge> findByClassIdAndStatus(UUID classId, ChallengeStatus status);
     Optional<Challenge> findByClassIdAndTitleIgnoreCase(UUID classId, String title);
+
+    /**
+     * Nicht geschlossene Challenges der Klassen, deren Zeitraum sich mit {@code [from, to]} überschneidet.
+     */
+    @Query("""
+            select c from Challenge c
+            where c.classId in :classIds and c.startDate <= :to and c.endDate >= :from
+              and c.status <> at.htl.ecotrack.shared.model.ChallengeStatus.CLOSED
+            """)
+    List<Challenge> findOverlapping(@Param("classIds") Collection<UUID> classIds,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = """
+            update challenges set status = 'ACTIVE', updated_at = current_timestamp
+            where status = 'DRAFT' and start_date <= :today and end_date >= :today
+            """, nativeQuery = true)
+    int activateStarted(@Param("today") LocalDate today);
+
+    /**
+     * Schließt alle abgelaufenen Challenges und friert den Stand aus {@code challenge_progress}
+     * als {@code final_value} ein. Challenges, für deren Zeitraum noch Events der Klasse offen sind,
+     * bleiben bis zum nächsten Lauf offen; geparkte Events halten das Schließen nicht auf.
+     */
+    @Modifying
+    @Query(value = """
+            update challenges c
+            set status = 'CLOSED',
+                final_value = coalesce((select case when c.goal_unit = 'POINTS' then p.points else p.activity_count end
+                                        from challenge_progress p
+                                        where p.challenge_id = c.challenge_id), 0),
+                updated_at = current_timestamp
+            where c.final_value is null and c.end_date < :today
+              and not exists (select 1 from activity_events e
+                              join eco_user_profiles p on p.eco_user_id = e.eco_user_id
+                              where p.class_id = c.class_id
+                                and e.processed_at is null and e.failed_at is null
+                                and e.activity_date between c.start_date and c.end_date)
+            """, nativeQuery = true)
+    int closeEnded(@Param("today") LocalDate today);
 }
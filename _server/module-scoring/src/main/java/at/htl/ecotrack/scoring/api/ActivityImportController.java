@@ -0,0 +1,43 @@
+package at.htl.ecotrack.scoring.api;
+
+import at.htl.ecotrack.scoring.application.ActivityImportService;
+import at.htl.ecotrack.scoring.application.ScoringDtos;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/imports/activities")
+@PreAuthorize("hasRole('ADMIN')")
+public class ActivityImportController {
+
+    private final ActivityImportService importService;
+
+    public ActivityImportController(ActivityImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Nimmt eine CSV-Datei als Request-Body entgegen und startet den Import im Hintergrund.
+     */
+    @PostMapping(consumes = {"text/csv", "text/plain", "application/octet-stream"})
+    public ResponseEntity<ScoringDtos.ImportStatusResponse> start(InputStream body) {
+        ScoringDtos.ImportStatusResponse status = importService.startImport(body);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/admin/imports/activities/" + status.importId()))
+                .body(status);
+    }
+
+    @GetMapping("/{importId}")
+    public ScoringDtos.ImportStatusResponse status(@PathVariable("importId") UUID importId) {
+        return importService.getStatus(importId);
+    }
+}
@@ -1,42 +1,80 @@
 package at.htl.ecotrack.scoring.api;
 
 import at.htl.ecotrack.shared.security.CurrentUser;
+import at.htl.ecotrack.scoring.application.ActionCatalog;
+import at.htl.ecotrack.scoring.application.ActivityExportService;
 import at.htl.ecotrack.scoring.application.ScoringDtos;
 import at.htl.ecotrack.scoring.application.ScoringService;
+import at.htl.ecotrack.shared.export.ExportFormat;
 import at.htl.ecotrack.shared.model.Category;
 import at.htl.ecotrack.shared.model.PeriodType;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api")
 public class ScoringController {
 
     private final ScoringService scoringService;
+    private final ActivityExportService exportService;
 
-    public ScoringController(ScoringService scoringService) {
+    public ScoringController(ScoringService scoringService, ActivityExportService exportService) {
         this.scoringService = scoringService;
+        this.exportService = exportService;
     }
 
+    /**
+     * Liefert den Katalog mit ETag; bei passendem {@code If-None-Match} antwortet Spring mit 304.
+     */
     @GetMapping("/activities/catalog")
-    public List<ScoringDtos.ActionDefinitionResponse> catalog(@RequestParam(name = "category", required = false) Category category) {
-        return scoringService.getCatalog(category);
+    public ResponseEntity<List<ScoringDtos.ActionDefinitionResponse>> catalog(@RequestParam(name = "category", required = false) Category category) {
+        ActionCatalog.Snapshot snapshot = scoringService.getCatalogSnapshot();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag(category))
+                .body(snapshot.actions(category));
+    }
+
+    @PutMapping("/activities/catalog/{actionDefinitionId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ScoringDtos.ActionDefinitionResponse saveAction(@PathVariable("actionDefinitionId") UUID actionDefinitionId,
+                                                           @Valid @RequestBody ScoringDtos.SaveActionDefinitionRequest request) {
+        return scoringService.saveAction(actionDefinitionId, request);
     }
 
     @PostMapping("/activities")
     public ResponseEntity<ScoringDtos.ActivityEntryResponse> createActivity(@AuthenticationPrincipal CurrentUser currentUser,
+                                                                            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
                                                                             @Valid @RequestBody ScoringDtos.CreateActivityRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(scoringService.createActivity(currentUser, request));
+        // Wiederholungen aus dem Cache vor der Transaktion beantworten.
+        ScoringDtos.ActivityEntryResponse response = scoringService.findCachedReplay(currentUser, request, idempotencyKey)
+                .orElseGet(() -> scoringService.createActivity(currentUser, request, idempotencyKey));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/activities/batch")
+    public ScoringDtos.ActivityBatchResponse createActivities(@AuthenticationPrincipal CurrentUser currentUser,
+                                                              @Valid @RequestBody ScoringDtos.CreateActivityBatchRequest request) {
+        return scoringService.createActivities(currentUser, request);
     }
 
     @GetMapping("/activities")
@@ -47,6 +85,31 @@ public class ScoringController {
         return scoringService.getMyActivities(currentUser, page, size, category);
     }
 
+    @GetMapping("/activities/feed")
+    public ScoringDtos.ActivityFeedResponse activityFeed(@AuthenticationPrincipal CurrentUser currentUser,
+                                                         @RequestParam(name = "cursor", required = false) String cursor,
+                                                         @RequestParam(name = "size", defaultValue = "20") int size,
+                                                         @RequestParam(name = "category", required = false) Category category) {
+        return scoringService.getMyActivityFeed(currentUser, cursor, size, category);
+    }
+
+    @GetMapping("/activities/export")
+    public ResponseEntity<StreamingResponseBody> exportActivities(@AuthenticationPrincipal CurrentUser currentUser,
+                                                                  @RequestParam(name = "format", defaultValue = "CSV") ExportFormat format) {
+        return ResponseEntity.ok()
+                .headers(format.downloadHeaders("aktivitaeten"))
+                .body(exportService.exportMyActivities(currentUser, format));
+    }
+
+    @GetMapping("/activities/export/class/{classId}")
+    public ResponseEntity<StreamingResponseBody> exportClassActivities(@AuthenticationPrincipal CurrentUser currentUser,
+                                                                       @PathVariable("classId") UUID classId,
+                                                                       @RequestParam(name = "format", defaultValue = "CSV") ExportFormat format) {
+        return ResponseEntity.ok()
+                .headers(format.downloadHeaders("klasse-" + classId))
+                .body(exportService.exportClassActivities(currentUser, classId, format));
+    }
+
     @GetMapping("/progress/points")
     public ScoringDtos.PointsLedgerResponse points(@AuthenticationPrincipal CurrentUser currentUser) {
         return scoringService.getMyPoints(currentUser);
@@ -57,6 +120,11 @@ public class ScoringController {
         return scoringService.getMyProgress(currentUser);
     }
 
+    @GetMapping(path = "/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter progressStream(@AuthenticationPrincipal CurrentUser currentUser) {
+        return scoringService.streamMyProgress(currentUser);
+    }
+
     @GetMapping("/leaderboard/class")
     public ScoringDtos.RankingTableResponse classLeaderboard(@AuthenticationPrincipal CurrentUser currentUser,
                                                              @RequestParam(name = "period", required = false) PeriodType period) {
@@ -68,4 +136,28 @@ public class ScoringController {
                                                               @RequestParam(name = "period", required = false) PeriodType period) {
         return scoringService.getSchoolLeaderboard(currentUser, period);
     }
+
+    @GetMapping(path = "/leaderboard/class/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter classLeaderboardStream(@AuthenticationPrincipal CurrentUser currentUser) {
+        return scoringService.streamClassLeaderboard(currentUser);
+    }
+
+    @GetMapping(path = "/leaderboard/school/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter schoolLeaderboardStream(@AuthenticationPrincipal CurrentUser currentUser) {
+        return scoringService.streamSchoolLeaderboard(currentUser);
+    }
+
+    @GetMapping("/leaderboard/class/window")
+    public ScoringDtos.LeaderboardWindowResponse classLeaderboardWindow(@AuthenticationPrincipal CurrentUser currentUser,
+                                                                        @RequestParam(name = "top", defaultValue = "10") int top,
+                                                                        @RequestParam(name = "radius", defaultValue = "2") int radius) {
+        return scoringService.getClassLeaderboardWindow(currentUser, top, radius);
+    }
+
+    @GetMapping("/leaderboard/school/window")
+    public ScoringDtos.LeaderboardWindowResponse schoolLeaderboardWindow(@AuthenticationPrincipal CurrentUser currentUser,
+                                                                         @RequestParam(name = "top", defaultValue = "10") int top,
+                                                                         @RequestParam(name = "radius", defaultValue = "2") int radius) {
+        return scoringService.getSchoolLeaderboardWindow(currentUser, top, radius);
+    }
 }
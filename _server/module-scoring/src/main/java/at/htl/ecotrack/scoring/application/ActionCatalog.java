@@ -0,0 +1,110 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActionDefinition;
+import at.htl.ecotrack.scoring.domain.ActionDefinitionRepository;
+import at.htl.ecotrack.shared.model.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Unveränderlicher, versionierter In-Memory-Snapshot der aktiven {@link ActionDefinition}s.
+ *
+ * <p>
+ * Katalogabfragen und {@code createActivity} lesen ausschließlich aus dem Snapshot.
+ * Nach Schreibzugriffen auf den Katalog wird er über {@link #reload()} neu geladen.
+ */
+@Component
+public class ActionCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ActionCatalog.class);
+
+    private final ActionDefinitionRepository actionRepository;
+
+    private volatile Snapshot snapshot;
+
+    public ActionCatalog(ActionDefinitionRepository actionRepository) {
+        this.actionRepository = actionRepository;
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = reload();
+                }
+            }
+        }
+        return current;
+    }
+
+    public Optional<ScoringDtos.ActionDefinitionResponse> findActive(UUID actionDefinitionId) {
+        return Optional.ofNullable(snapshot().byId().get(actionDefinitionId));
+    }
+
+    public synchronized Snapshot reload() {
+        List<ScoringDtos.ActionDefinitionResponse> actions = actionRepository.findByActiveTrue().stream()
+                .sorted(Comparator.comparing(ActionDefinition::getCategory).thenComparing(ActionDefinition::getName))
+                .map(ActionCatalog::toResponse)
+                .toList();
+
+        Map<Category, List<ScoringDtos.ActionDefinitionResponse>> byCategory = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            byCategory.put(category, actions.stream().filter(a -> a.category() == category).toList());
+        }
+        Map<UUID, ScoringDtos.ActionDefinitionResponse> byId = actions.stream()
+                .collect(Collectors.toUnmodifiableMap(ScoringDtos.ActionDefinitionResponse::actionDefinitionId, Function.identity()));
+
+        long version = snapshot == null ? 1 : snapshot.version() + 1;
+        String etag = DigestUtils.md5DigestAsHex(actions.toString().getBytes(StandardCharsets.UTF_8));
+        Snapshot loaded = new Snapshot(version, etag, actions, Collections.unmodifiableMap(byCategory), byId);
+        snapshot = loaded;
+        log.info("Aktionskatalog geladen: Version {}, {} aktive Aktionen", version, actions.size());
+        return loaded;
+    }
+
+    private static ScoringDtos.ActionDefinitionResponse toResponse(ActionDefinition action) {
+        return new ScoringDtos.ActionDefinitionResponse(
+                action.getActionDefinitionId(),
+                action.getName(),
+                action.getDescription(),
+                action.getCategory(),
+                action.getUnit(),
+                action.getBasePoints(),
+                action.isActive()
+        );
+    }
+
+    /**
+     * @param version laufende Versionsnummer innerhalb dieser Instanz
+     * @param etag    Inhalts-Hash, stabil über Neustarts und Instanzen hinweg
+     */
+    public record Snapshot(long version,
+                           String etag,
+                           List<ScoringDtos.ActionDefinitionResponse> actions,
+                           Map<Category, List<ScoringDtos.ActionDefinitionResponse>> byCategory,
+                           Map<UUID, ScoringDtos.ActionDefinitionResponse> byId) {
+
+        public List<ScoringDtos.ActionDefinitionResponse> actions(Category category) {
+            return category == null ? actions : byCategory.get(category);
+        }
+
+        public String etag(Category category) {
+            return "\"" + etag + "-" + (category == null ? "all" : category.name()) + "\"";
+        }
+    }
+}
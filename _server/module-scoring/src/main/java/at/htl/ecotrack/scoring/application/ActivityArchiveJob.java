@@ -0,0 +1,112 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActivityPartitionRepository;
+import at.htl.ecotrack.scoring.domain.ActivityRecorded;
+import at.htl.ecotrack.scoring.domain.ActivityYearSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Nächtlicher Wartungsjob für {@code activity_entries}.
+ *
+ * <p>
+ * Abgeschlossene Schuljahre werden in {@code activity_year_summaries} verdichtet. Wurde in ein
+ * bereits verdichtetes Jahr nachgebucht (veraltet markiert oder geänderte Anzahl an Einträgen),
+ * wird es neu verdichtet. Auf PostgreSQL werden außerdem die Monatspartitionen für die nächsten
+ * 12 Monate angelegt.
+ */
+@Component
+public class ActivityArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityArchiveJob.class);
+
+    private final ActivityYearSummaryRepository summaryRepository;
+    private final ActivityPartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int schoolYearStartMonth;
+
+    public ActivityArchiveJob(ActivityYearSummaryRepository summaryRepository,
+                              ActivityPartitionRepository partitionRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${ecotrack.archive.school-year-start-month:9}") int schoolYearStartMonth) {
+        this.summaryRepository = summaryRepository;
+        this.partitionRepository = partitionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.schoolYearStartMonth = schoolYearStartMonth;
+    }
+
+    @Scheduled(cron = "${ecotrack.archive.cron:0 30 3 * * *}")
+    public void run() {
+        LocalDate today = LocalDate.now();
+        if (partitionRepository.isSupported()) {
+            int created = partitionRepository.ensurePartitions(today, today.plusMonths(12));
+            if (created > 0) {
+                log.info("{} Monatspartitionen für activity_entries angelegt", created);
+            }
+        }
+        int rolledUp = rollUpFinishedSchoolYears(today);
+        if (rolledUp > 0) {
+            log.info("{} Schuljahre verdichtet", rolledUp);
+        }
+    }
+
+    /**
+     * Verdichtet alle Schuljahre, die vor dem Schuljahr von {@code today} liegen.
+     *
+     * @return Anzahl neu oder erneut verdichteter Schuljahre
+     */
+    public int rollUpFinishedSchoolYears(LocalDate today) {
+        Optional<LocalDate> firstActivity = summaryRepository.findFirstActivityDate();
+        if (firstActivity.isEmpty()) {
+            return 0;
+        }
+        LocalDate currentYearStart = schoolYearStart(today);
+        Map<LocalDate, Long> rolledUp = summaryRepository.findRollupEntryCounts();
+
+        int count = 0;
+        for (LocalDate start = schoolYearStart(firstActivity.get()); start.isBefore(currentYearStart);
+             start = start.plusYears(1)) {
+            LocalDate yearStart = start;
+            LocalDate yearEnd = start.plusYears(1).minusDays(1);
+            long entries = summaryRepository.countEntries(yearStart, yearEnd);
+            Long previous = rolledUp.get(yearStart);
+            if (previous != null && previous == entries) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> summaryRepository.rollUp(yearStart, yearEnd, entries));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Markiert die verdichteten Schuljahre, in die {@code events} nachbuchen, als veraltet. Läuft in
+     * der Transaktion der Buchung; Buchungen im laufenden Schuljahr kosten kein Statement.
+     */
+    public void invalidateRollups(List<ActivityRecorded> events) {
+        LocalDate currentYearStart = schoolYearStart(LocalDate.now());
+        List<LocalDate> backdated = events.stream()
+                .map(ActivityRecorded::activityDate)
+                .filter(date -> date.isBefore(currentYearStart))
+                .toList();
+        if (!backdated.isEmpty()) {
+            summaryRepository.markStale(backdated.stream().min(Comparator.naturalOrder()).orElseThrow(),
+                    backdated.stream().max(Comparator.naturalOrder()).orElseThrow());
+        }
+    }
+
+    LocalDate schoolYearStart(LocalDate date) {
+        int year = date.getMonthValue() >= schoolYearStartMonth ? date.getYear() : date.getYear() - 1;
+        return LocalDate.of(year, schoolYearStartMonth, 1);
+    }
+}
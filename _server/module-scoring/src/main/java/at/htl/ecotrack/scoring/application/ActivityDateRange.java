@@ -0,0 +1,37 @@
+package at.htl.ecotrack.scoring.application;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * Erlaubter Zeitraum für das Aktivitätsdatum: nicht in der Zukunft und höchstens {@code max-age}
+ * zurück. Gilt für App-Buchungen, Batch-Sync und Import gleichermaßen.
+ *
+ * <p>
+ * Auf PostgreSQL landen Daten außerhalb der angelegten Monatspartitionen in der Auffangpartition;
+ * zukünftige Daten würden dort das spätere Anlegen ihres Monats blockieren.
+ */
+@Component
+public class ActivityDateRange {
+
+    private final Period maxAge;
+
+    public ActivityDateRange(@Value("${ecotrack.activities.max-age:5y}") Period maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public boolean contains(LocalDate date, LocalDate today) {
+        return !date.isAfter(today) && !date.isBefore(earliest(today));
+    }
+
+    public LocalDate earliest(LocalDate today) {
+        return today.minus(maxAge);
+    }
+
+    public String describe(LocalDate today) {
+        return "Datum muss zwischen " + earliest(today) + " und " + today + " liegen";
+    }
+}
@@ -0,0 +1,190 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActivityEventRepository;
+import at.htl.ecotrack.scoring.domain.ActivityRecorded;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stellt {@link ActivityRecorded}-Events an alle {@link ActivityRecordedListener} zu.
+ *
+ * <p>
+ * Nach dem Commit landen die Events in einer begrenzten Queue, die ein eigener Thread in Batches
+ * abarbeitet. Ist die Queue voll, wartet der Request nicht: Das Event liegt ohnehin in
+ * {@code activity_events} und wird vom Sweeper nachgeholt, ebenso alles, was bei einem Absturz
+ * oder Fehler offen geblieben ist.
+ *
+ * <p>
+ * Scheitert ein Batch, werden seine Events einzeln in je eigener Transaktion zugestellt, damit ein
+ * einzelnes fehlerhaftes Event die übrigen nicht blockiert. Scheitert ein Event auch allein, zählt
+ * {@code activity_events.attempts} hoch; nach {@code max-attempts} wird es geparkt.
+ */
+@Component
+public class ActivityEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityEventDispatcher.class);
+
+    private final ActivityEventRepository eventRepository;
+    private final List<ActivityRecordedListener> listeners;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<ActivityRecorded> queue;
+    private final int batchSize;
+    private final Duration sweepGracePeriod;
+    private final Duration retention;
+    private final int maxAttempts;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public ActivityEventDispatcher(ActivityEventRepository eventRepository,
+                                   List<ActivityRecordedListener> listeners,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${ecotrack.events.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${ecotrack.events.batch-size:500}") int batchSize,
+                                   @Value("${ecotrack.events.sweep-grace-period:10s}") Duration sweepGracePeriod,
+                                   @Value("${ecotrack.events.retention:7d}") Duration retention,
+                                   @Value("${ecotrack.events.max-attempts:5}") int maxAttempts) {
+        this.eventRepository = eventRepository;
+        this.listeners = listeners;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.sweepGracePeriod = sweepGracePeriod;
+        this.retention = retention;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("activity-events").daemon().start(this::drain);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Nach dem Commit aufrufen. Blockiert nie.
+     */
+    void publish(List<ActivityRecorded> events) {
+        for (ActivityRecorded event : events) {
+            if (!queue.offer(event)) {
+                log.warn("Event-Queue voll, restliche Events werden vom Sweeper nachgeholt");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Holt offene Events nach, die älter als die Karenzzeit sind (Absturz, volle Queue, Fehler in
+     * einem Listener), und löscht verarbeitete Events nach Ablauf der Aufbewahrungsdauer.
+     *
+     * @return Anzahl nachgeholter Events
+     */
+    @Scheduled(fixedDelayString = "${ecotrack.events.sweep-interval-ms:30000}")
+    public int sweep() {
+        int replayed = replayPendingBefore(OffsetDateTime.now().minus(sweepGracePeriod));
+        eventRepository.deleteProcessedBefore(OffsetDateTime.now().minus(retention));
+        return replayed;
+    }
+
+    /**
+     * Stellt alle offenen Events zu, die vor {@code cutoff} aufgetreten sind, z.B. mit {@code now}
+     * bevor ein Endstand eingefroren wird.
+     *
+     * @return Anzahl zugestellter Events
+     */
+    public int replayPendingBefore(OffsetDateTime cutoff) {
+        int replayed = 0;
+        List<ActivityRecorded> pending;
+        int processed;
+        do {
+            pending = eventRepository.findPending(cutoff, batchSize);
+            processed = pending.isEmpty() ? 0 : process(pending);
+            replayed += processed;
+            // Nach Fehlern nicht sofort dieselben Events erneut holen, sondern erst im nächsten Lauf.
+        } while (pending.size() == batchSize && processed == pending.size());
+        if (replayed > 0) {
+            log.info("{} offene Activity-Events nachgeholt", replayed);
+        }
+        return replayed;
+    }
+
+    private void drain() {
+        List<ActivityRecorded> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ActivityRecorded first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Activity-Events konnten nicht verarbeitet werden, Sweeper versucht es erneut", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private int process(List<ActivityRecorded> events) {
+        try {
+            return project(events);
+        } catch (RuntimeException e) {
+            log.warn("Batch mit {} Activity-Events fehlgeschlagen, Zustellung einzeln", events.size(), e);
+        }
+        int processed = 0;
+        for (ActivityRecorded event : events) {
+            try {
+                processed += project(List.of(event));
+            } catch (RuntimeException e) {
+                recordFailure(event, e);
+            }
+        }
+        return processed;
+    }
+
+    private void recordFailure(ActivityRecorded event, RuntimeException error) {
+        Boolean parked = transactionTemplate.execute(status -> eventRepository.recordFailure(
+                event.activityEntryId(), error.toString(), maxAttempts, OffsetDateTime.now()));
+        if (Boolean.TRUE.equals(parked)) {
+            log.error("Activity-Event {} nach {} Versuchen geparkt", event.activityEntryId(), maxAttempts, error);
+        } else {
+            log.warn("Activity-Event {} konnte nicht verarbeitet werden: {}", event.activityEntryId(), error.toString());
+        }
+    }
+
+    private int project(List<ActivityRecorded> events) {
+        Integer processed = transactionTemplate.execute(status -> {
+            List<ActivityRecorded> claimed = eventRepository.claim(events, OffsetDateTime.now());
+            if (!claimed.isEmpty()) {
+                listeners.forEach(listener -> listener.onActivitiesRecorded(claimed));
+            }
+            return claimed.size();
+        });
+        return processed == null ? 0 : processed;
+    }
+}
@@ -0,0 +1,52 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActivityEntryExportReader;
+import at.htl.ecotrack.shared.error.ApiException;
+import at.htl.ecotrack.shared.export.ExportFormat;
+import at.htl.ecotrack.shared.export.ExportWriter;
+import at.htl.ecotrack.shared.model.Role;
+import at.htl.ecotrack.shared.security.CurrentUser;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.UUID;
+
+/**
+ * Exporte des Aktivitätsverlaufs. Berechtigungen und Profil werden vor dem Streamen geprüft,
+ * damit Fehler noch als normale API-Fehler beim Client ankommen.
+ */
+@Service
+public class ActivityExportService {
+
+    private final ActivityEntryExportReader exportReader;
+    private final EcoUserProfileService profileService;
+
+    public ActivityExportService(ActivityEntryExportReader exportReader, EcoUserProfileService profileService) {
+        this.exportReader = exportReader;
+        this.profileService = profileService;
+    }
+
+    public StreamingResponseBody exportMyActivities(CurrentUser currentUser, ExportFormat format) {
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
+        UUID ecoUserId = profile.ecoUserId();
+        return out -> {
+            ExportWriter writer = ExportWriter.open(format, ActivityEntryExportReader.ACTIVITY_COLUMNS, out);
+            exportReader.exportByEcoUserId(ecoUserId, writer);
+            writer.flush();
+        };
+    }
+
+    public StreamingResponseBody exportClassActivities(CurrentUser currentUser, UUID classId, ExportFormat format) {
+        if (currentUser.role() != Role.LEHRER && currentUser.role() != Role.ADMIN) {
+            throw new ApiException(HttpStatus.FORBIDDEN, "FORBIDDEN", "Keine Berechtigung");
+        }
+        return out -> {
+            ExportWriter writer = ExportWriter.open(format, ActivityEntryExportReader.CLASS_COLUMNS, out);
+            exportReader.exportByClassId(classId, writer);
+            writer.flush();
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.shared.error.ApiException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position im Aktivitätsverlauf: letzter gelieferter Eintrag nach (timestamp, activityEntryId).
+ * Für Clients ist der Cursor ein undurchsichtiger String.
+ */
+record ActivityFeedCursor(OffsetDateTime timestamp, UUID activityEntryId) {
+
+    String encode() {
+        String raw = timestamp + "|" + activityEntryId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ActivityFeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new ActivityFeedCursor(
+                    OffsetDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "INVALID_CURSOR", "Ungültiger Cursor");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package at.htl.ecotrack.scoring.application;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fortschritt eines laufenden oder abgeschlossenen Aktivitäten-Imports. Wird vom
+ * Import-Thread geschrieben und vom Status-Endpoint gelesen.
+ */
+class ActivityImportJob {
+
+    private static final int MAX_ERRORS = 100;
+
+    private final UUID importId;
+    private final OffsetDateTime startedAt = OffsetDateTime.now();
+    private final AtomicLong processedRows = new AtomicLong();
+    private final AtomicLong importedRows = new AtomicLong();
+    private final AtomicLong rejectedRows = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile ScoringDtos.ImportState state = ScoringDtos.ImportState.RUNNING;
+    private volatile OffsetDateTime finishedAt;
+
+    ActivityImportJob(UUID importId) {
+        this.importId = importId;
+    }
+
+    UUID importId() {
+        return importId;
+    }
+
+    void imported(int rows) {
+        processedRows.addAndGet(rows);
+        importedRows.addAndGet(rows);
+    }
+
+    /**
+     * Es werden nur die ersten Fehler gemerkt, damit große fehlerhafte Dateien den Heap
+     * nicht füllen.
+     */
+    void rejected(long lineNumber, String reason) {
+        processedRows.incrementAndGet();
+        rejectedRows.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("Zeile " + lineNumber + ": " + reason);
+            }
+        }
+    }
+
+    void rebuilding() {
+        state = ScoringDtos.ImportState.REBUILDING;
+    }
+
+    void completed() {
+        finishedAt = OffsetDateTime.now();
+        state = ScoringDtos.ImportState.COMPLETED;
+    }
+
+    void failed(String reason) {
+        synchronized (errors) {
+            errors.add(reason);
+        }
+        finishedAt = OffsetDateTime.now();
+        state = ScoringDtos.ImportState.FAILED;
+    }
+
+    ScoringDtos.ImportStatusResponse toResponse() {
+        List<String> errorsCopy;
+        synchronized (errors) {
+            errorsCopy = List.copyOf(errors);
+        }
+        return new ScoringDtos.ImportStatusResponse(
+                importId,
+                state,
+                processedRows.get(),
+                importedRows.get(),
+                rejectedRows.get(),
+                errorsCopy,
+                startedAt,
+                finishedAt
+        );
+    }
+}
@@ -0,0 +1,340 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActivityEntry;
+import at.htl.ecotrack.scoring.domain.ActivityEntryBatchWriter;
+import at.htl.ecotrack.scoring.domain.ActivityEventRepository;
+import at.htl.ecotrack.scoring.domain.ActivityRecorded;
+import at.htl.ecotrack.scoring.domain.PointsLedgerRepository;
+import at.htl.ecotrack.shared.error.ApiException;
+import at.htl.ecotrack.shared.id.UuidV7;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static at.htl.ecotrack.shared.model.ActivitySource.IMPORT;
+
+/**
+ * Importiert historische Aktivitäten aus CSV-Dateien ({@code email,actionDefinitionId,quantity,date}).
+ *
+ * <p>
+ * Die Datei wird auf die Platte gespoolt und im Hintergrund zeilenweise gelesen, sodass der
+ * Speicherbedarf nicht von der Dateigröße abhängt. Gültige Zeilen werden in großen JDBC-Batches
+ * geschrieben; die Punkte eines Chunks werden in derselben Transaktion per atomarem Increment auf
+ * die Punktestände gebucht, sodass ein Abbruch zwischen zwei Chunks keine Stände verfälscht.
+ * Jede importierte Aktivität erzeugt wie eine App-Buchung ein {@link ActivityRecorded}-Event für
+ * die Projektionen.
+ */
+@Service
+public class ActivityImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityImportService.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_TRACKED_IMPORTS = 50;
+    private static final List<String> COLUMNS = List.of("email", "actionDefinitionId", "quantity", "date");
+
+    private final ActionCatalog actionCatalog;
+    private final EcoUserProfileService profileService;
+    private final ActivityEntryBatchWriter activityEntryBatchWriter;
+    private final PointsLedgerRepository ledgerRepository;
+    private final ActivityEventRepository eventRepository;
+    private final ActivityEventDispatcher eventDispatcher;
+    private final LeaderboardIndex leaderboardIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final ActivityDateRange activityDateRange;
+    private final ActivityArchiveJob archiveJob;
+
+    private final Map<UUID, ActivityImportJob> imports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, ActivityImportJob> eldest) {
+            return size() > MAX_TRACKED_IMPORTS;
+        }
+    };
+
+    public ActivityImportService(ActionCatalog actionCatalog,
+                                 EcoUserProfileService profileService,
+                                 ActivityEntryBatchWriter activityEntryBatchWriter,
+                                 PointsLedgerRepository ledgerRepository,
+                                 ActivityEventRepository eventRepository,
+                                 ActivityEventDispatcher eventDispatcher,
+                                 LeaderboardIndex leaderboardIndex,
+                                 TransactionTemplate transactionTemplate,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                 ActivityDateRange activityDateRange,
+                                 ActivityArchiveJob archiveJob) {
+        this.actionCatalog = actionCatalog;
+        this.profileService = profileService;
+        this.activityEntryBatchWriter = activityEntryBatchWriter;
+        this.ledgerRepository = ledgerRepository;
+        this.eventRepository = eventRepository;
+        this.eventDispatcher = eventDispatcher;
+        this.leaderboardIndex = leaderboardIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+        this.activityDateRange = activityDateRange;
+        this.archiveJob = archiveJob;
+    }
+
+    /**
+     * Spoolt die Datei und startet den Import im Hintergrund.
+     */
+    public ScoringDtos.ImportStatusResponse startImport(InputStream csv) {
+        Path spool;
+        try {
+            spool = Files.createTempFile("ecotrack-import-", ".csv");
+        } catch (IOException ex) {
+            throw new ApiException(HttpStatus.INTERNAL_SERVER_ERROR, "IMPORT_ERROR", "Import konnte nicht gestartet werden");
+        }
+        try (csv) {
+            Files.copy(csv, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            deleteQuietly(spool);
+            throw new ApiException(HttpStatus.BAD_REQUEST, "IMPORT_UNREADABLE", "Importdatei konnte nicht gelesen werden");
+        }
+
+        ActivityImportJob job = new ActivityImportJob(UUID.randomUUID());
+        synchronized (imports) {
+            imports.put(job.importId(), job);
+        }
+        taskExecutor.execute(() -> run(job, spool));
+        return job.toResponse();
+    }
+
+    public ScoringDtos.ImportStatusResponse getStatus(UUID importId) {
+        ActivityImportJob job;
+        synchronized (imports) {
+            job = imports.get(importId);
+        }
+        if (job == null) {
+            throw new ApiException(HttpStatus.NOT_FOUND, "IMPORT_NOT_FOUND", "Import nicht gefunden");
+        }
+        return job.toResponse();
+    }
+
+    private void run(ActivityImportJob job, Path spool) {
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = parseHeader(reader.readLine());
+
+            List<RawRow> chunk = new ArrayList<>(BATCH_SIZE);
+            long lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(new RawRow(lineNumber, line));
+                if (chunk.size() == BATCH_SIZE) {
+                    writeChunk(job, columns, chunk);
+                    chunk.clear();
+                }
+            }
+            writeChunk(job, columns, chunk);
+
+            job.rebuilding();
+            leaderboardIndex.rebuild();
+            // Nachgebuchte abgeschlossene Schuljahre gleich neu verdichten statt bis zum Wartungsjob live zu lesen.
+            archiveJob.rollUpFinishedSchoolYears(LocalDate.now());
+            job.completed();
+            log.info("Import {} abgeschlossen: {}", job.importId(), job.toResponse());
+        } catch (Exception ex) {
+            log.error("Import {} fehlgeschlagen", job.importId(), ex);
+            job.failed(ex.getMessage());
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Importdatei ist leer");
+        }
+        String[] names = split(header.replace("﻿", ""));
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i], i);
+        }
+        for (String column : COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Spalte fehlt: " + column);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Validiert einen Chunk, löst alle E-Mails mit einem Query auf und schreibt die gültigen
+     * Zeilen samt Punktebuchung in einer eigenen Transaktion.
+     */
+    private void writeChunk(ActivityImportJob job, Map<String, Integer> columns, List<RawRow> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        List<ParsedRow> parsed = new ArrayList<>(chunk.size());
+        Set<String> emails = new HashSet<>();
+        for (RawRow row : chunk) {
+            String error = null;
+            ParsedRow parsedRow = null;
+            try {
+                String[] values = split(row.line());
+                if (values.length < columns.size()) {
+                    error = "Zu wenige Spalten";
+                } else {
+                    String email = values[columns.get("email")].toLowerCase();
+                    UUID actionId = UUID.fromString(values[columns.get("actionDefinitionId")]);
+                    double quantity = Double.parseDouble(values[columns.get("quantity")]);
+                    LocalDate date = LocalDate.parse(values[columns.get("date")]);
+                    ScoringDtos.ActionDefinitionResponse action = actionCatalog.findActive(actionId).orElse(null);
+                    if (action == null) {
+                        error = "Aktion nicht verfügbar: " + actionId;
+                    } else if (!(quantity >= 1)) {
+                        error = "Menge muss mindestens 1 sein";
+                    } else if (!activityDateRange.contains(date, today)) {
+                        error = activityDateRange.describe(today);
+                    } else {
+                        parsedRow = new ParsedRow(row.lineNumber(), email, action, quantity, date);
+                        emails.add(email);
+                    }
+                }
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                error = "Ungültiger Wert (" + ex.getMessage() + ")";
+            }
+            if (parsedRow != null) {
+                parsed.add(parsedRow);
+            } else {
+                job.rejected(row.lineNumber(), error);
+            }
+        }
+
+        Map<String, UUID> ecoUserIds = profileService.getEcoUserIdsByEmail(emails);
+        List<ActivityEntry> entries = new ArrayList<>(parsed.size());
+        // Sortiert, damit parallele Buchungen die Ledger-Zeilen in derselben Reihenfolge sperren.
+        Map<UUID, Integer> pointsByUser = new TreeMap<>();
+        for (ParsedRow row : parsed) {
+            UUID ecoUserId = ecoUserIds.get(row.email());
+            if (ecoUserId == null) {
+                job.rejected(row.lineNumber(), "Unbekannte E-Mail: " + row.email());
+                continue;
+            }
+            ActivityEntry entry = toEntry(ecoUserId, row);
+            entries.add(entry);
+            pointsByUser.merge(ecoUserId, entry.getPoints(), Integer::sum);
+        }
+
+        List<ActivityRecorded> events = entries.stream().map(ActivityRecorded::of).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            activityEntryBatchWriter.insertAll(entries);
+            pointsByUser.forEach((ecoUserId, points) -> {
+                ledgerRepository.ensureLedger(ecoUserId);
+                ledgerRepository.incrementTotal(ecoUserId, points);
+            });
+            eventRepository.append(events);
+            archiveJob.invalidateRollups(events);
+        });
+        eventDispatcher.publish(events);
+        job.imported(entries.size());
+    }
+
+    private static ActivityEntry toEntry(UUID ecoUserId, ParsedRow row) {
+        ActivityEntry entry = new ActivityEntry();
+        entry.setActivityEntryId(UuidV7.generate());
+        entry.setEcoUserId(ecoUserId);
+        entry.setActionDefinitionId(row.action().actionDefinitionId());
+        entry.setActionName(row.action().name());
+        entry.setCategory(row.action().category());
+        entry.setQuantity(row.quantity());
+        entry.setUnit(row.action().unit());
+        entry.setPoints((int) Math.round(row.quantity() * row.action().basePoints()));
+        // Historische Einträge erhalten den Beginn des Aktivitätstags als Zeitstempel.
+        entry.setTimestamp(row.date().atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime());
+        entry.setActivityDate(row.date());
+        entry.setSource(IMPORT);
+        return entry;
+    }
+
+    /**
+     * Zerlegt eine CSV-Zeile nach RFC 4180: Felder in Anführungszeichen dürfen Kommas und
+     * verdoppelte Anführungszeichen enthalten. Zeilenumbrüche in Feldern werden nicht unterstützt.
+     */
+    private static String[] split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                values.add(wasQuoted ? value.toString() : value.toString().trim());
+                value.setLength(0);
+                wasQuoted = false;
+            } else if (c == '"' && value.toString().isBlank()) {
+                quoted = true;
+                wasQuoted = true;
+                value.setLength(0);
+            } else if (c == '"' || (wasQuoted && !Character.isWhitespace(c))) {
+                throw new IllegalArgumentException("Anführungszeichen nur um ganze Felder erlaubt");
+            } else if (!wasQuoted) {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Anführungszeichen nicht geschlossen");
+        }
+        values.add(wasQuoted ? value.toString() : value.toString().trim());
+        return values.toArray(String[]::new);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Temporäre Importdatei {} konnte nicht gelöscht werden", path);
+        }
+    }
+
+    private record RawRow(long lineNumber, String line) {
+    }
+
+    private record ParsedRow(long lineNumber,
+                             String email,
+                             ScoringDtos.ActionDefinitionResponse action,
+                             double quantity,
+                             LocalDate date) {
+    }
+}
@@ -0,0 +1,18 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActivityRecorded;
+
+import java.util.List;
+
+/**
+ * Projektion, die aus {@link ActivityRecorded}-Events fortgeschrieben wird.
+ *
+ * <p>
+ * Aufrufe kommen gebündelt vom {@link ActivityEventDispatcher}, außerhalb des Request-Threads und
+ * innerhalb einer Transaktion, die die Events zugleich als verarbeitet markiert. Jedes Event wird
+ * genau einmal zugestellt; wirft ein Listener, wird der ganze Batch später erneut versucht.
+ */
+public interface ActivityRecordedListener {
+
+    void onActivitiesRecorded(List<ActivityRecorded> events);
+}
@@ -0,0 +1,91 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActionTotal;
+import at.htl.ecotrack.scoring.domain.ActivityEntryRepository;
+import at.htl.ecotrack.scoring.domain.ActivityTotals;
+import at.htl.ecotrack.scoring.domain.ActivityYearSummaryRepository;
+import at.htl.ecotrack.scoring.domain.UserPointsTotal;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Aggregierte Aktivitätszahlen für eine Gruppe von EcoUsern (z.B. Klassen-Dashboard).
+ *
+ * <p>
+ * Deckt der Zeitraum alle verdichteten Schuljahre ab (typisch für TOTAL), kommen diese aus
+ * {@code activity_year_summaries} und nur der Rest aus {@code activity_entries}. Sonst wird
+ * direkt auf {@code activity_entries} gerechnet, wo PostgreSQL nur die passenden Partitionen liest.
+ * Ein Schuljahr, in das seit der Verdichtung nachgebucht wurde, gilt als veraltet; es und alle
+ * späteren Jahre werden bis zur nächsten Verdichtung live gelesen.
+ */
+@Service
+public class ActivityStatistics {
+
+    private final ActivityEntryRepository activityRepository;
+    private final ActivityYearSummaryRepository summaryRepository;
+
+    public ActivityStatistics(ActivityEntryRepository activityRepository,
+                              ActivityYearSummaryRepository summaryRepository) {
+        this.activityRepository = activityRepository;
+        this.summaryRepository = summaryRepository;
+    }
+
+    public GroupStatistics forUsers(List<UUID> ecoUserIds, LocalDate start, LocalDate end) {
+        if (ecoUserIds.isEmpty()) {
+            return new GroupStatistics(0, 0, 0, List.of(), Map.of());
+        }
+
+        Optional<ActivityYearSummaryRepository.ArchivedRange> archived = summaryRepository.findArchivedRange()
+                .filter(range -> !start.isAfter(range.firstStart()) && end.isAfter(range.lastEnd()));
+        LocalDate liveStart = archived.map(range -> range.lastEnd().plusDays(1)).orElse(start);
+
+        ActivityTotals live = activityRepository.summarize(ecoUserIds, liveStart, end);
+        Map<UUID, Long> pointsByUser = new HashMap<>();
+        for (UserPointsTotal total : activityRepository.sumPointsByUser(ecoUserIds, liveStart, end)) {
+            pointsByUser.put(total.getEcoUserId(), total.getPoints());
+        }
+        Map<UUID, ActionStatistics> byAction = new LinkedHashMap<>();
+        for (ActionTotal total : activityRepository.sumPointsByAction(ecoUserIds, liveStart, end)) {
+            byAction.put(total.getActionDefinitionId(), new ActionStatistics(
+                    total.getActionDefinitionId(), total.getActionName(), total.getActivityCount(), total.getPoints()));
+        }
+
+        if (archived.isEmpty()) {
+            return new GroupStatistics(live.getPoints(), live.getActivityCount(), live.getActiveUsers(),
+                    List.copyOf(byAction.values()), pointsByUser);
+        }
+
+        long points = live.getPoints();
+        long activityCount = live.getActivityCount();
+        for (ActivityYearSummaryRepository.UserTotal total : summaryRepository.sumByUser(ecoUserIds, archived.get())) {
+            pointsByUser.merge(total.ecoUserId(), total.points(), Long::sum);
+            points += total.points();
+            activityCount += total.activityCount();
+        }
+        for (ActivityYearSummaryRepository.ActionYearTotal total : summaryRepository.sumByAction(ecoUserIds, archived.get())) {
+            byAction.merge(total.actionDefinitionId(),
+                    new ActionStatistics(total.actionDefinitionId(), total.actionName(), total.activityCount(), total.points()),
+                    (a, b) -> new ActionStatistics(a.actionDefinitionId(), a.actionName(),
+                            a.activityCount() + b.activityCount(), a.points() + b.points()));
+        }
+        // Aktiv ist, wer im Zeitraum mindestens einen Eintrag hat – live oder verdichtet.
+        return new GroupStatistics(points, activityCount, pointsByUser.size(), List.copyOf(byAction.values()), pointsByUser);
+    }
+
+    public record GroupStatistics(long points,
+                                  long activityCount,
+                                  long activeUsers,
+                                  List<ActionStatistics> byAction,
+                                  Map<UUID, Long> pointsByUser) {
+    }
+
+    public record ActionStatistics(UUID actionDefinitionId, String actionName, long activityCount, long points) {
+    }
+}
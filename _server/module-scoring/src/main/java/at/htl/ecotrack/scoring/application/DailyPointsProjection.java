@@ -0,0 +1,45 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.ActivityRecorded;
+import at.htl.ecotrack.scoring.domain.DailyPointsBatchWriter;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Schreibt die Tagessummen in {@code daily_points} fort (Grundlage der Wochen-/Monatsranglisten).
+ */
+@Component
+public class DailyPointsProjection implements ActivityRecordedListener {
+
+    private static final Comparator<Bucket> BUCKET_ORDER =
+            Comparator.comparing(Bucket::ecoUserId).thenComparing(Bucket::activityDate);
+
+    private final DailyPointsBatchWriter dailyPointsBatchWriter;
+
+    public DailyPointsProjection(DailyPointsBatchWriter dailyPointsBatchWriter) {
+        this.dailyPointsBatchWriter = dailyPointsBatchWriter;
+    }
+
+    @Override
+    public void onActivitiesRecorded(List<ActivityRecorded> events) {
+        // Ein Update pro Bucket statt pro Event; sortiert, damit parallele Batches gleich sperren.
+        Map<Bucket, Integer> points = new TreeMap<>(BUCKET_ORDER);
+        for (ActivityRecorded event : events) {
+            points.merge(new Bucket(event.ecoUserId(), event.activityDate()), event.points(), Integer::sum);
+        }
+        List<DailyPointsBatchWriter.Delta> deltas = new ArrayList<>(points.size());
+        points.forEach((bucket, sum) -> deltas.add(
+                new DailyPointsBatchWriter.Delta(bucket.ecoUserId(), bucket.activityDate(), sum)));
+        dailyPointsBatchWriter.addAll(deltas);
+    }
+
+    private record Bucket(UUID ecoUserId, LocalDate activityDate) {
+    }
+}
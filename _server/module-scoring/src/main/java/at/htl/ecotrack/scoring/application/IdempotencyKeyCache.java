@@ -0,0 +1,44 @@
+package at.htl.ecotrack.scoring.application;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Größenbegrenzter Cache der zuletzt verwendeten Idempotency-Keys mit der ursprünglichen Antwort.
+ * Wiederholte Requests (Retry nach Timeout) werden damit ohne Datenbankzugriff beantwortet.
+ * Schlüssel ist die Keycloak-User-ID aus dem Token, damit vor dem Lookup kein Profil geladen werden
+ * muss. Einträge werden erst nach dem Commit aufgenommen.
+ */
+@Component
+public class IdempotencyKeyCache {
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, ScoringDtos.ActivityEntryResponse> responses;
+
+    public IdempotencyKeyCache(@Value("${ecotrack.idempotency.cache-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ScoringDtos.ActivityEntryResponse> eldest) {
+                return size() > IdempotencyKeyCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized ScoringDtos.ActivityEntryResponse get(UUID userId, String idempotencyKey) {
+        return responses.get(new Key(userId, idempotencyKey));
+    }
+
+    public synchronized void put(UUID userId, String idempotencyKey, ScoringDtos.ActivityEntryResponse response) {
+        if (maxSize > 0) {
+            responses.put(new Key(userId, idempotencyKey), response);
+        }
+    }
+
+    private record Key(UUID userId, String idempotencyKey) {
+    }
+}
@@ -0,0 +1,138 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.scoring.domain.PointsLedger;
+import at.htl.ecotrack.scoring.domain.PointsLedgerRepository;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
+import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-Memory-Index der Gesamtpunkte-Ranglisten pro Klasse und pro Schule.
+ *
+ * <p>
+ * Wird beim Start aus {@code points_ledgers} aufgebaut und von {@link ScoringService#createActivity}
+ * nach dem Commit inkrementell fortgeschrieben. Top-N und das Fenster um den aktuellen Benutzer
+ * werden ohne Sortierung der gesamten Klasse/Schule ermittelt.
+ *
+ * <p>
+ * Nach dem Commit können Stände desselben Benutzers in beliebiger Reihenfolge eintreffen; es gilt
+ * immer der höchste. Während eines Neuaufbaus eintreffende Stände werden danach erneut angewendet.
+ */
+@Component
+public class LeaderboardIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardIndex.class);
+
+    private final EcoUserProfileService profileService;
+    private final PointsLedgerRepository ledgerRepository;
+
+    private volatile Map<UUID, RankedBoard> classBoards = new ConcurrentHashMap<>();
+    private volatile Map<UUID, RankedBoard> schoolBoards = new ConcurrentHashMap<>();
+    private final Map<UUID, RecordedTotal> recordedDuringRebuild = new ConcurrentHashMap<>();
+    private volatile boolean rebuilding;
+
+    public LeaderboardIndex(EcoUserProfileService profileService, PointsLedgerRepository ledgerRepository) {
+        this.profileService = profileService;
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        recordedDuringRebuild.clear();
+        rebuilding = true;
+        try {
+            swapIn();
+        } finally {
+            rebuilding = false;
+        }
+        recordedDuringRebuild.values().forEach(recorded -> apply(recorded.profile(), recorded.totalPoints()));
+        recordedDuringRebuild.clear();
+    }
+
+    private void swapIn() {
+        Map<UUID, Integer> pointsByUser = ledgerRepository.findAll().stream()
+                .collect(Collectors.toMap(PointsLedger::getEcoUserId, PointsLedger::getTotalPoints));
+        Map<UUID, RankedBoard> classes = new ConcurrentHashMap<>();
+        Map<UUID, RankedBoard> schools = new ConcurrentHashMap<>();
+        List<EcoUserProfile> profiles = profileService.getAll();
+        for (EcoUserProfile profile : profiles) {
+            RankedBoard.Entry entry = new RankedBoard.Entry(profile.getEcoUserId(), profile.getDisplayName(),
+                    pointsByUser.getOrDefault(profile.getEcoUserId(), 0));
+            if (profile.getClassId() != null) {
+                classes.computeIfAbsent(profile.getClassId(), id -> new RankedBoard()).put(entry);
+            }
+            if (profile.getSchoolId() != null) {
+                schools.computeIfAbsent(profile.getSchoolId(), id -> new RankedBoard()).put(entry);
+            }
+        }
+        classBoards = classes;
+        schoolBoards = schools;
+        log.info("Ranglisten-Index aufgebaut: {} Profile, {} Klassen, {} Schulen",
+                profiles.size(), classes.size(), schools.size());
+    }
+
+    /**
+     * Schreibt den neuen Gesamtpunktestand eines EcoUsers in Klassen- und Schulrangliste.
+     */
+    public void record(EcoUserProfileSnapshot profile, int totalPoints) {
+        if (rebuilding) {
+            recordedDuringRebuild.merge(profile.ecoUserId(), new RecordedTotal(profile, totalPoints),
+                    (current, candidate) -> candidate.totalPoints() > current.totalPoints() ? candidate : current);
+        }
+        apply(profile, totalPoints);
+    }
+
+    private void apply(EcoUserProfileSnapshot profile, int totalPoints) {
+        RankedBoard.Entry entry = toEntry(profile, totalPoints);
+        if (profile.classId() != null) {
+            classBoards.computeIfAbsent(profile.classId(), id -> new RankedBoard()).putIfHigher(entry);
+        }
+        if (profile.schoolId() != null) {
+            schoolBoards.computeIfAbsent(profile.schoolId(), id -> new RankedBoard()).putIfHigher(entry);
+        }
+    }
+
+    RankedBoard classBoard(EcoUserProfileSnapshot profile) {
+        return board(classBoards, profile.classId(), profile);
+    }
+
+    RankedBoard schoolBoard(EcoUserProfileSnapshot profile) {
+        return board(schoolBoards, profile.schoolId(), profile);
+    }
+
+    RankedBoard classBoard(UUID classId) {
+        return classBoards.get(classId);
+    }
+
+    RankedBoard schoolBoard(UUID schoolId) {
+        return schoolBoards.get(schoolId);
+    }
+
+    /**
+     * Profile, die nach dem Start angelegt wurden und noch keine Punkte haben, werden beim
+     * ersten Zugriff mit 0 Punkten aufgenommen.
+     */
+    private RankedBoard board(Map<UUID, RankedBoard> boards, UUID scopeId, EcoUserProfileSnapshot profile) {
+        RankedBoard board = boards.computeIfAbsent(scopeId, id -> new RankedBoard());
+        board.putIfAbsent(toEntry(profile, 0));
+        return board;
+    }
+
+    private RankedBoard.Entry toEntry(EcoUserProfileSnapshot profile, int totalPoints) {
+        return new RankedBoard.Entry(profile.ecoUserId(), profile.displayName(), totalPoints);
+    }
+
+    private record RecordedTotal(EcoUserProfileSnapshot profile, int totalPoints) {
+    }
+}
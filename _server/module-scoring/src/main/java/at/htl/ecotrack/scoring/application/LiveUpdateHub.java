@@ -0,0 +1,357 @@
+package at.htl.ecotrack.scoring.application;
+
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Verteilt Punkte- und Ranglistenänderungen per Server-Sent Events.
+ *
+ * <p>
+ * {@link ScoringService} meldet nach dem Commit nur den neuen Stand; versendet wird gesammelt
+ * alle {@code ecotrack.live.flush-interval-ms}. Mehrere Buchungen dazwischen ergeben pro Abonnent
+ * ein Event mit dem letzten Stand. Offene Verbindungen sind asynchrone Requests und belegen
+ * keinen Thread, solange nichts gesendet wird.
+ *
+ * <p>
+ * Der Scheduler sammelt nur ein. Jede Verbindung hat eine eigene, begrenzte Warteschlange, die auf
+ * einem kleinen Sende-Pool abgearbeitet wird; die Reihenfolge pro Verbindung bleibt erhalten, und
+ * ein hängender Client hält die übrigen nicht auf. Hängt ein Senden länger als
+ * {@code ecotrack.live.send-timeout} oder stauen sich mehr als {@value #MAX_QUEUED_EVENTS} Events,
+ * wird die Verbindung beendet; der Client (EventSource) baut sie neu auf.
+ */
+@Component
+public class LiveUpdateHub {
+
+    static final String PROGRESS_EVENT = "progress";
+    static final String LEADERBOARD_EVENT = "leaderboard";
+    static final String LEADERBOARD_CHANGES_EVENT = "leaderboard-changes";
+
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdateHub.class);
+
+    private static final int MAX_QUEUED_EVENTS = 16;
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+
+    private final Map<UUID, Set<SseEmitter>> progressSubscribers = new ConcurrentHashMap<>();
+    private final Map<UUID, ScoringDtos.ProgressSnapshotResponse> pendingProgress = new ConcurrentHashMap<>();
+    private final ScopeChannel classChannel;
+    private final ScopeChannel schoolChannel;
+    private final Map<SseEmitter, Connection> connections = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final long sendTimeoutNanos;
+
+    public LiveUpdateHub(LeaderboardIndex leaderboardIndex,
+                         ObjectMapper objectMapper,
+                         @Value("${ecotrack.live.timeout-ms:1800000}") long timeoutMillis,
+                         @Value("${ecotrack.live.send-threads:4}") int sendThreads,
+                         @Value("${ecotrack.live.send-timeout:10s}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(sendThreads, runnable -> Thread.ofPlatform()
+                .name("live-updates-" + threads.incrementAndGet())
+                .daemon()
+                .unstarted(runnable));
+        this.classChannel = new ScopeChannel("CLASS", leaderboardIndex::classBoard);
+        this.schoolChannel = new ScopeChannel("SCHOOL", leaderboardIndex::schoolBoard);
+    }
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+    }
+
+    SseEmitter subscribeProgress(UUID ecoUserId) {
+        return register(progressSubscribers, ecoUserId);
+    }
+
+    SseEmitter subscribeClass(UUID classId) {
+        return register(classChannel.subscribers, classId);
+    }
+
+    SseEmitter subscribeSchool(UUID schoolId) {
+        return register(schoolChannel.subscribers, schoolId);
+    }
+
+    /**
+     * Merkt einen neuen Punktestand zum Versand vor. Bei konkurrierenden Commits gewinnt der höhere
+     * Stand, da Punkte nur wachsen.
+     */
+    void publish(EcoUserProfileSnapshot profile, ScoringDtos.ProgressSnapshotResponse progress) {
+        if (progressSubscribers.containsKey(profile.ecoUserId())) {
+            pendingProgress.merge(profile.ecoUserId(), progress, LiveUpdateHub::newer);
+        }
+        if (profile.classId() != null) {
+            classChannel.publish(profile.classId(), profile, progress);
+        }
+        if (profile.schoolId() != null) {
+            schoolChannel.publish(profile.schoolId(), profile, progress);
+        }
+    }
+
+    void sendInitial(SseEmitter emitter, String eventName, Object payload) {
+        send(emitter, SseEmitter.event().name(eventName).data(payload));
+    }
+
+    /**
+     * Verteilt die gesammelten Änderungen auf die Warteschlangen der Verbindungen und beendet
+     * Verbindungen, deren laufendes Senden die Zeitgrenze überschritten hat.
+     */
+    @Scheduled(fixedDelayString = "${ecotrack.live.flush-interval-ms:250}")
+    public void flush() {
+        closeStalled();
+        for (UUID ecoUserId : pendingProgress.keySet()) {
+            ScoringDtos.ProgressSnapshotResponse progress = pendingProgress.remove(ecoUserId);
+            Set<SseEmitter> emitters = progressSubscribers.get(ecoUserId);
+            if (progress != null && emitters != null) {
+                broadcast(emitters, PROGRESS_EVENT, toJson(progress));
+            }
+        }
+        classChannel.flush();
+        schoolChannel.flush();
+    }
+
+    /**
+     * Kommentarzeile gegen Idle-Timeouts von Proxies; erkennt außerdem abgebrochene Verbindungen.
+     * Verbindungen mit noch offenen Events brauchen keinen Ping und werden übersprungen.
+     */
+    @Scheduled(fixedRateString = "${ecotrack.live.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        for (Connection connection : connections.values()) {
+            if (connection.idle()) {
+                connection.enqueue(SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    int subscriberCount() {
+        int count = 0;
+        for (Map<UUID, Set<SseEmitter>> subscribers : List.of(progressSubscribers,
+                classChannel.subscribers, schoolChannel.subscribers)) {
+            for (Set<SseEmitter> emitters : subscribers.values()) {
+                count += emitters.size();
+            }
+        }
+        return count;
+    }
+
+    private SseEmitter register(Map<UUID, Set<SseEmitter>> subscribers, UUID key) {
+        SseEmitter emitter = newEmitter();
+        subscribers.compute(key, (id, emitters) -> {
+            Set<SseEmitter> result = emitters == null ? ConcurrentHashMap.newKeySet() : emitters;
+            result.add(emitter);
+            return result;
+        });
+        Runnable remove = () -> {
+            connections.remove(emitter);
+            subscribers.computeIfPresent(key, (id, emitters) -> {
+                emitters.remove(emitter);
+                return emitters.isEmpty() ? null : emitters;
+            });
+        };
+        connections.put(emitter, new Connection(emitter, remove));
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void broadcast(Set<SseEmitter> emitters, String eventName, String json) {
+        for (SseEmitter emitter : emitters) {
+            Connection connection = connections.get(emitter);
+            if (connection != null) {
+                // Jede Verbindung braucht einen eigenen Builder; der JSON-Text wird nur einmal erzeugt.
+                connection.enqueue(SseEmitter.event().name(eventName).data(json));
+            }
+        }
+    }
+
+    private void closeStalled() {
+        long now = System.nanoTime();
+        for (Connection connection : connections.values()) {
+            long since = connection.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                close(connection.emitter, new IOException("SSE-Senden hängt seit mehr als "
+                        + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " ms"));
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            close(emitter, e);
+        }
+    }
+
+    private void close(SseEmitter emitter, Exception cause) {
+        // Client ist weg oder zu langsam; die Callbacks aus register() räumen ebenfalls auf.
+        log.debug("SSE-Verbindung geschlossen: {}", cause.getMessage());
+        Connection connection = connections.remove(emitter);
+        if (connection != null) {
+            connection.unsubscribe.run();
+        }
+        emitter.completeWithError(cause);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ScoringDtos.ProgressSnapshotResponse newer(ScoringDtos.ProgressSnapshotResponse current,
+                                                             ScoringDtos.ProgressSnapshotResponse candidate) {
+        return candidate.totalPoints() >= current.totalPoints() ? candidate : current;
+    }
+
+    private record PendingChange(String displayName, ScoringDtos.ProgressSnapshotResponse progress) {
+    }
+
+    /**
+     * Warteschlange einer Verbindung; höchstens ein Sende-Thread arbeitet sie zur Zeit ab.
+     */
+    private final class Connection {
+
+        private final SseEmitter emitter;
+        private final Runnable unsubscribe;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendingSince;
+
+        private Connection(SseEmitter emitter, Runnable unsubscribe) {
+            this.emitter = emitter;
+            this.unsubscribe = unsubscribe;
+        }
+
+        private boolean idle() {
+            return queued.get() == 0 && sendingSince == 0;
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (queued.incrementAndGet() > MAX_QUEUED_EVENTS) {
+                close(emitter, new IOException("Mehr als " + MAX_QUEUED_EVENTS + " SSE-Events offen"));
+                return;
+            }
+            queue.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            SseEmitter.SseEventBuilder event;
+            while ((event = queue.poll()) != null) {
+                queued.decrementAndGet();
+                sendingSince = System.nanoTime();
+                try {
+                    send(emitter, event);
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+            draining.set(false);
+            // Ein Event kann zwischen poll() und set(false) angekommen sein.
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Abonnenten und vorgemerkte Änderungen der Ranglisten einer Ebene (Klasse oder Schule).
+     */
+    private final class ScopeChannel {
+
+        private final String scope;
+        private final Function<UUID, RankedBoard> boards;
+        private final Map<UUID, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+        private final Map<UUID, Map<UUID, PendingChange>> pending = new ConcurrentHashMap<>();
+
+        private ScopeChannel(String scope, Function<UUID, RankedBoard> boards) {
+            this.scope = scope;
+            this.boards = boards;
+        }
+
+        private void publish(UUID scopeId, EcoUserProfileSnapshot profile, ScoringDtos.ProgressSnapshotResponse progress) {
+            if (!subscribers.containsKey(scopeId)) {
+                return;
+            }
+            // Atomar mit flush(): landet die Änderung nach dem Entnehmen, beginnt sie eine neue Map.
+            pending.compute(scopeId, (id, changes) -> {
+                Map<UUID, PendingChange> result = changes == null ? new HashMap<>() : changes;
+                result.merge(profile.ecoUserId(), new PendingChange(profile.displayName(), progress),
+                        (current, candidate) -> candidate.progress().totalPoints() >= current.progress().totalPoints()
+                                ? candidate : current);
+                return result;
+            });
+        }
+
+        private void flush() {
+            for (UUID scopeId : pending.keySet()) {
+                Map<UUID, PendingChange> changes = pending.remove(scopeId);
+                Set<SseEmitter> emitters = subscribers.get(scopeId);
+                RankedBoard board = boards.apply(scopeId);
+                if (changes == null || emitters == null || board == null) {
+                    continue;
+                }
+                List<ScoringDtos.LeaderboardChangeRow> rows = new ArrayList<>(changes.size());
+                changes.forEach((ecoUserId, change) -> rows.add(new ScoringDtos.LeaderboardChangeRow(
+                        board.rankOf(change.progress().totalPoints()),
+                        ecoUserId,
+                        change.displayName(),
+                        change.progress().totalPoints(),
+                        change.progress().currentLevel())));
+                broadcast(emitters, LEADERBOARD_CHANGES_EVENT, toJson(new ScoringDtos.LeaderboardChangesResponse(
+                        scope, OffsetDateTime.now(), board.size(), rows)));
+            }
+        }
+    }
+}
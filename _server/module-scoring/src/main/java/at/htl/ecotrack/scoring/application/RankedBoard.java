@@ -0,0 +1,222 @@
+package at.htl.ecotrack.scoring.application;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Rangliste einer Klasse oder Schule als Order-Statistic-Treap.
+ * Sortierung: Punkte absteigend, danach Anzeigename und EcoUser-ID.
+ * Einfügen, Entfernen, Rang- und Positionsabfragen laufen in O(log n).
+ */
+class RankedBoard {
+
+    static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::points).reversed()
+            .thenComparing(Entry::displayName, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Entry::ecoUserId);
+
+    record Entry(UUID ecoUserId, String displayName, int points) {
+    }
+
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private Node root;
+
+    synchronized void put(Entry entry) {
+        Entry previous = entries.put(entry.ecoUserId(), entry);
+        if (previous != null) {
+            root = remove(root, previous);
+        }
+        root = insert(root, new Node(entry));
+    }
+
+    /**
+     * Übernimmt den Eintrag nur, wenn er mehr Punkte hat als der bisherige. Punkte werden nur
+     * gutgeschrieben, ein niedrigerer Stand ist also ein veralteter (z.B. verspätetes afterCommit).
+     */
+    synchronized void putIfHigher(Entry entry) {
+        Entry current = entries.get(entry.ecoUserId());
+        if (current == null || entry.points() > current.points()) {
+            put(entry);
+        }
+    }
+
+    synchronized void putIfAbsent(Entry entry) {
+        if (!entries.containsKey(entry.ecoUserId())) {
+            put(entry);
+        }
+    }
+
+    synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * Rang mit Gleichstand-Behandlung (1, 1, 3, ...): eins plus Anzahl der Einträge mit mehr Punkten.
+     */
+    synchronized int rankOf(int points) {
+        int above = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.entry.points() > points) {
+                above += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return above + 1;
+    }
+
+    synchronized List<RankedEntry> top(int limit) {
+        return slice(0, Math.min(limit, size(root)));
+    }
+
+    synchronized List<RankedEntry> around(UUID ecoUserId, int radius) {
+        Entry entry = entries.get(ecoUserId);
+        if (entry == null) {
+            return List.of();
+        }
+        int position = positionOf(entry);
+        return slice(Math.max(0, position - radius), Math.min(size(root), position + radius + 1));
+    }
+
+    private List<RankedEntry> slice(int fromInclusive, int toExclusive) {
+        List<RankedEntry> result = new ArrayList<>(Math.max(toExclusive - fromInclusive, 0));
+        for (int i = fromInclusive; i < toExclusive; i++) {
+            Entry entry = select(i);
+            result.add(new RankedEntry(rankOf(entry.points()), entry));
+        }
+        return result;
+    }
+
+    private int positionOf(Entry entry) {
+        int position = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = ORDER.compare(entry, node.entry);
+            if (cmp == 0) {
+                return position + size(node.left);
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                position += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        throw new IllegalStateException("Eintrag nicht im Ranking: " + entry.ecoUserId());
+    }
+
+    private Entry select(int index) {
+        Node node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.entry;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    private static Node insert(Node node, Node created) {
+        if (node == null) {
+            return created;
+        }
+        if (ORDER.compare(created.entry, node.entry) < 0) {
+            node.left = insert(node.left, created);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, created);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node remove(Node node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(entry, node.entry);
+        if (cmp < 0) {
+            node.left = remove(node.left, entry);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, entry);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    record RankedEntry(int rank, Entry entry) {
+    }
+
+    private static final class Node {
+        private final Entry entry;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Entry entry) {
+            this.entry = entry;
+        }
+
+        private void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
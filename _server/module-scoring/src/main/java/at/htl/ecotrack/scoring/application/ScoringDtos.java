@@ -5,8 +5,12 @@ import at.htl.ecotrack.shared.model.Category;
 import at.htl.ecotrack.shared.model.Level;
 import at.htl.ecotrack.shared.model.PeriodType;
 import at.htl.ecotrack.shared.model.Unit;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -26,9 +30,62 @@ public class ScoringDtos {
     ) {
     }
 
+    public record SaveActionDefinitionRequest(
+            @NotBlank String name,
+            String description,
+            @NotNull Category category,
+            @NotNull Unit unit,
+            @Min(1) int basePoints,
+            boolean active
+    ) {
+    }
+
     public record CreateActivityRequest(@NotNull UUID actionDefinitionId, @Min(1) double quantity, LocalDate date) {
     }
 
+    public record CreateActivityBatchRequest(
+            @NotEmpty @Size(max = 100) List<@Valid @NotNull CreateActivityRequest> activities
+    ) {
+    }
+
+    public record ActivityBatchItemResult(
+            int index,
+            boolean created,
+            String code,
+            String message,
+            ActivityEntryResponse activity
+    ) {
+        public static ActivityBatchItemResult success(int index, ActivityEntryResponse activity) {
+            return new ActivityBatchItemResult(index, true, null, null, activity);
+        }
+
+        public static ActivityBatchItemResult rejected(int index, String code, String message) {
+            return new ActivityBatchItemResult(index, false, code, message, null);
+        }
+    }
+
+    public record ActivityBatchResponse(int created, int rejected, List<ActivityBatchItemResult> results) {
+    }
+
+    public enum ImportState {
+        RUNNING,
+        REBUILDING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record ImportStatusResponse(
+            UUID importId,
+            ImportState state,
+            long processedRows,
+            long importedRows,
+            long rejectedRows,
+            List<String> errors,
+            OffsetDateTime startedAt,
+            OffsetDateTime finishedAt
+    ) {
+    }
+
     public record ActivityEntryResponse(
             UUID activityEntryId,
             UUID actionDefinitionId,
@@ -42,6 +99,15 @@ public class ScoringDtos {
     ) {
     }
 
+    /**
+     * Seite des Verlaufs für Infinite Scroll; {@code nextCursor} ist {@code null}, wenn es keine weiteren Einträge gibt.
+     */
+    public record ActivityFeedResponse(
+            List<ActivityEntryResponse> content,
+            String nextCursor
+    ) {
+    }
+
     public record ActivityPageResponse(
             List<ActivityEntryResponse> content,
             int page,
@@ -71,12 +137,32 @@ public class ScoringDtos {
     ) {
     }
 
+    /**
+     * Push über SSE: seit dem letzten Versand geänderte Einträge einer Rangliste. Ränge anderer
+     * Teilnehmer können sich dadurch verschieben.
+     */
+    public record LeaderboardChangesResponse(String scope,
+                                             OffsetDateTime generatedAt,
+                                             int participants,
+                                             List<LeaderboardChangeRow> changes) {
+    }
+
+    public record LeaderboardChangeRow(int rank, UUID ecoUserId, String displayName, int points, Level level) {
+    }
+
     public record RankingTableResponse(String scope, PeriodType period, OffsetDateTime generatedAt, List<RankingRowResponse> rows) {
     }
 
     public record RankingRowResponse(int rank, UUID ecoUserId, String displayName, int points, Level level, boolean isCurrentUser) {
     }
 
+    public record LeaderboardWindowResponse(String scope,
+                                            OffsetDateTime generatedAt,
+                                            int participants,
+                                            List<RankingRowResponse> top,
+                                            List<RankingRowResponse> aroundMe) {
+    }
+
     private ScoringDtos() {
     }
 }
@@ -2,31 +2,45 @@ package at.htl.ecotrack.scoring.application;
 
 import at.htl.ecotrack.shared.security.CurrentUser;
 import at.htl.ecotrack.shared.error.ApiException;
+import at.htl.ecotrack.shared.id.UuidV7;
 import at.htl.ecotrack.shared.model.Category;
 import at.htl.ecotrack.shared.model.Level;
 import at.htl.ecotrack.shared.model.PeriodType;
 import at.htl.ecotrack.userprofile.application.EcoUserProfileService;
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
 import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
 import at.htl.ecotrack.scoring.domain.ActionDefinition;
 import at.htl.ecotrack.scoring.domain.ActionDefinitionRepository;
 import at.htl.ecotrack.scoring.domain.ActivityEntry;
+import at.htl.ecotrack.scoring.domain.ActivityEntryBatchWriter;
 import at.htl.ecotrack.scoring.domain.ActivityEntryRepository;
+import at.htl.ecotrack.scoring.domain.ActivityEventRepository;
+import at.htl.ecotrack.scoring.domain.ActivityRecorded;
+import at.htl.ecotrack.scoring.domain.DailyPointsRepository;
+import at.htl.ecotrack.scoring.domain.IdempotencyKeyRepository;
 import at.htl.ecotrack.scoring.domain.PointsLedger;
 import at.htl.ecotrack.scoring.domain.PointsLedgerRepository;
+import at.htl.ecotrack.scoring.domain.UserPointsTotal;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -37,8 +51,19 @@ public class ScoringService {
 
     private final ActionDefinitionRepository actionRepository;
     private final ActivityEntryRepository activityRepository;
+    private final ActivityEntryBatchWriter activityEntryBatchWriter;
     private final PointsLedgerRepository ledgerRepository;
+    private final DailyPointsRepository dailyPointsRepository;
     private final EcoUserProfileService profileService;
+    private final LeaderboardIndex leaderboardIndex;
+    private final ActionCatalog actionCatalog;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyKeyCache idempotencyKeyCache;
+    private final LiveUpdateHub liveUpdateHub;
+    private final ActivityEventRepository eventRepository;
+    private final ActivityEventDispatcher eventDispatcher;
+    private final ActivityDateRange activityDateRange;
+    private final ActivityArchiveJob archiveJob;
 
     private final int level1;
     private final int level2;
@@ -47,16 +72,38 @@ public class ScoringService {
 
     public ScoringService(ActionDefinitionRepository actionRepository,
                           ActivityEntryRepository activityRepository,
+                          ActivityEntryBatchWriter activityEntryBatchWriter,
                           PointsLedgerRepository ledgerRepository,
+                          DailyPointsRepository dailyPointsRepository,
                           EcoUserProfileService profileService,
+                          LeaderboardIndex leaderboardIndex,
+                          ActionCatalog actionCatalog,
+                          IdempotencyKeyRepository idempotencyKeyRepository,
+                          IdempotencyKeyCache idempotencyKeyCache,
+                          LiveUpdateHub liveUpdateHub,
+                          ActivityEventRepository eventRepository,
+                          ActivityEventDispatcher eventDispatcher,
+                          ActivityDateRange activityDateRange,
+                          ActivityArchiveJob archiveJob,
                           @Value("${ecotrack.level-thresholds.jungbaum:100}") int level1,
                           @Value("${ecotrack.level-thresholds.baum:250}") int level2,
                           @Value("${ecotrack.level-thresholds.altbaum:500}") int level3,
                           @Value("${ecotrack.level-thresholds.legend:1000}") int level4) {
         this.actionRepository = actionRepository;
         this.activityRepository = activityRepository;
+        this.activityEntryBatchWriter = activityEntryBatchWriter;
         this.ledgerRepository = ledgerRepository;
+        this.dailyPointsRepository = dailyPointsRepository;
         this.profileService = profileService;
+        this.leaderboardIndex = leaderboardIndex;
+        this.actionCatalog = actionCatalog;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencyKeyCache = idempotencyKeyCache;
+        this.liveUpdateHub = liveUpdateHub;
+        this.eventRepository = eventRepository;
+        this.eventDispatcher = eventDispatcher;
+        this.activityDateRange = activityDateRange;
+        this.archiveJob = archiveJob;
         this.level1 = level1;
         this.level2 = level2;
         this.level3 = level3;
@@ -64,67 +111,229 @@ public class ScoringService {
     }
 
     public List<ScoringDtos.ActionDefinitionResponse> getCatalog(Category category) {
-        List<ActionDefinition> actions = category == null
-                ? actionRepository.findByActiveTrue()
-                : actionRepository.findByActiveTrueAndCategory(category);
-        return actions.stream().map(this::toActionResponse).toList();
+        return actionCatalog.snapshot().actions(category);
+    }
+
+    public ActionCatalog.Snapshot getCatalogSnapshot() {
+        return actionCatalog.snapshot();
+    }
+
+    @Transactional
+    public ScoringDtos.ActionDefinitionResponse saveAction(UUID actionDefinitionId, ScoringDtos.SaveActionDefinitionRequest request) {
+        ActionDefinition action = actionRepository.findById(actionDefinitionId).orElseGet(() -> {
+            ActionDefinition a = new ActionDefinition();
+            a.setActionDefinitionId(actionDefinitionId);
+            return a;
+        });
+        action.setName(request.name());
+        action.setDescription(request.description());
+        action.setCategory(request.category());
+        action.setUnit(request.unit());
+        action.setBasePoints(request.basePoints());
+        action.setActive(request.active());
+        ActionDefinition saved = actionRepository.save(action);
+
+        afterCommit(actionCatalog::reload);
+        return toActionResponse(saved);
     }
 
     @Transactional
     public ScoringDtos.ActivityEntryResponse createActivity(CurrentUser currentUser, ScoringDtos.CreateActivityRequest request) {
-        EcoUserProfile profile = profileService.getByUserId(currentUser.userId());
-        ActionDefinition action = actionRepository.findById(request.actionDefinitionId())
-                .filter(ActionDefinition::isActive)
+        return createActivity(currentUser, request, null);
+    }
+
+    /**
+     * Beantwortet die Wiederholung eines bereits gebuchten Requests aus dem
+     * {@link IdempotencyKeyCache}. Läuft bewusst ohne Transaktion und ohne Profil-Lookup, damit ein
+     * Retry keine Datenbankverbindung belegt; bei einem Cache-Miss folgt
+     * {@link #createActivity(CurrentUser, ScoringDtos.CreateActivityRequest, String)}.
+     */
+    public Optional<ScoringDtos.ActivityEntryResponse> findCachedReplay(CurrentUser currentUser,
+                                                                       ScoringDtos.CreateActivityRequest request,
+                                                                       String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+        validateIdempotencyKey(idempotencyKey);
+        return Optional.ofNullable(idempotencyKeyCache.get(currentUser.userId(), idempotencyKey))
+                .map(cached -> replay(cached, request));
+    }
+
+    /**
+     * Bucht eine Aktivität. Mit {@code idempotencyKey} liefert eine Wiederholung über die
+     * Schlüsseltabelle die ursprüngliche Antwort; ohne Schlüssel greift die 5-Minuten-Duplikatprüfung.
+     */
+    @Transactional
+    public ScoringDtos.ActivityEntryResponse createActivity(CurrentUser currentUser,
+                                                            ScoringDtos.CreateActivityRequest request,
+                                                            String idempotencyKey) {
+        if (idempotencyKey != null) {
+            validateIdempotencyKey(idempotencyKey);
+        }
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
+
+        ScoringDtos.ActionDefinitionResponse action = actionCatalog.findActive(request.actionDefinitionId())
                 .orElseThrow(() -> new ApiException(HttpStatus.BAD_REQUEST, "ACTION_NOT_FOUND", "Aktion nicht verfügbar"));
 
-        LocalDate activityDate = request.date() == null ? LocalDate.now() : request.date();
-        activityRepository
-                .findTopByEcoUserIdAndActionDefinitionIdAndQuantityAndActivityDateOrderByTimestampDesc(
-                        profile.getEcoUserId(),
-                        request.actionDefinitionId(),
-                        request.quantity(),
-                        activityDate
-                )
-                .ifPresent(existing -> {
-                    if (existing.getTimestamp().isAfter(OffsetDateTime.now().minusMinutes(5))) {
-                        throw new ApiException(HttpStatus.CONFLICT, "DUPLICATE_ACTIVITY", "Duplikat innerhalb von 5 Minuten erkannt");
-                    }
-                });
-
-        int points = (int) Math.round(request.quantity() * action.getBasePoints());
+        LocalDate today = LocalDate.now();
+        LocalDate activityDate = request.date() == null ? today : request.date();
+        if (!activityDateRange.contains(activityDate, today)) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "INVALID_ACTIVITY_DATE", activityDateRange.describe(today));
+        }
+        UUID activityEntryId = UuidV7.generate();
+        if (idempotencyKey != null) {
+            if (!idempotencyKeyRepository.reserve(profile.ecoUserId(), idempotencyKey, activityEntryId)) {
+                ScoringDtos.ActivityEntryResponse original = idempotencyKeyRepository
+                        .findActivityEntryId(profile.ecoUserId(), idempotencyKey)
+                        .flatMap(activityRepository::findById)
+                        .map(this::toActivityResponse)
+                        .orElseThrow(() -> new ApiException(HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_CONFLICT",
+                                "Idempotency-Key wird bereits verwendet"));
+                afterCommit(() -> idempotencyKeyCache.put(currentUser.userId(), idempotencyKey, original));
+                return replay(original, request);
+            }
+        } else {
+            activityRepository
+                    .findTopByEcoUserIdAndActionDefinitionIdAndQuantityAndActivityDateOrderByTimestampDesc(
+                            profile.ecoUserId(),
+                            request.actionDefinitionId(),
+                            request.quantity(),
+                            activityDate
+                    )
+                    .ifPresent(existing -> {
+                        if (existing.getTimestamp().isAfter(OffsetDateTime.now().minusMinutes(5))) {
+                            throw new ApiException(HttpStatus.CONFLICT, "DUPLICATE_ACTIVITY", "Duplikat innerhalb von 5 Minuten erkannt");
+                        }
+                    });
+        }
+
+        int points = (int) Math.round(request.quantity() * action.basePoints());
 
         ActivityEntry entry = new ActivityEntry();
-        entry.setActivityEntryId(UUID.randomUUID());
-        entry.setEcoUserId(profile.getEcoUserId());
-        entry.setActionDefinitionId(action.getActionDefinitionId());
-        entry.setActionName(action.getName());
-        entry.setCategory(action.getCategory());
+        entry.setActivityEntryId(activityEntryId);
+        entry.setEcoUserId(profile.ecoUserId());
+        entry.setActionDefinitionId(action.actionDefinitionId());
+        entry.setActionName(action.name());
+        entry.setCategory(action.category());
         entry.setQuantity(request.quantity());
-        entry.setUnit(action.getUnit());
+        entry.setUnit(action.unit());
         entry.setPoints(points);
         entry.setActivityDate(activityDate);
         entry.setSource(APP);
 
         ActivityEntry saved = activityRepository.save(entry);
 
-        PointsLedger ledger = ledgerRepository.findById(profile.getEcoUserId()).orElseGet(() -> {
-            PointsLedger l = new PointsLedger();
-            l.setEcoUserId(profile.getEcoUserId());
-            l.setTotalPoints(0);
-            return l;
-        });
-        ledger.setTotalPoints(ledger.getTotalPoints() + points);
-        ledgerRepository.save(ledger);
+        int totalPoints = ledgerRepository.addPoints(profile.ecoUserId(), points);
+        recorded(List.of(ActivityRecorded.of(saved)));
+
+        afterCommit(() -> pointsChanged(profile, totalPoints));
+
+        ScoringDtos.ActivityEntryResponse response = toActivityResponse(saved);
+        if (idempotencyKey != null) {
+            afterCommit(() -> idempotencyKeyCache.put(currentUser.userId(), idempotencyKey, response));
+        }
+        return response;
+    }
+
+    private static void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 100) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY", "Idempotency-Key muss 1 bis 100 Zeichen lang sein");
+        }
+    }
+
+    /**
+     * Ein Schlüssel darf nur für denselben Inhalt wiederverwendet werden.
+     */
+    private ScoringDtos.ActivityEntryResponse replay(ScoringDtos.ActivityEntryResponse original,
+                                                     ScoringDtos.CreateActivityRequest request) {
+        if (!original.actionDefinitionId().equals(request.actionDefinitionId())
+                || Double.compare(original.quantity(), request.quantity()) != 0) {
+            throw new ApiException(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED",
+                    "Idempotency-Key wurde bereits für eine andere Aktivität verwendet");
+        }
+        return original;
+    }
+
+    /**
+     * Bucht mehrere Aktivitäten (Offline-Sync der App) in einer Transaktion mit einer
+     * festen Anzahl an Statements. Ungültige Einträge und Duplikate werden pro Eintrag
+     * abgelehnt, ohne den Rest des Batches zu verwerfen.
+     */
+    @Transactional
+    public ScoringDtos.ActivityBatchResponse createActivities(CurrentUser currentUser,
+                                                              ScoringDtos.CreateActivityBatchRequest request) {
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
+        List<ScoringDtos.CreateActivityRequest> items = request.activities();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        Set<UUID> actionIds = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        for (ScoringDtos.CreateActivityRequest item : items) {
+            actionIds.add(item.actionDefinitionId());
+            dates.add(item.date() == null ? now.toLocalDate() : item.date());
+        }
+        Set<DuplicateKey> seen = activityRepository
+                .findByEcoUserIdAndActionDefinitionIdInAndActivityDateInAndTimestampAfter(
+                        profile.ecoUserId(), actionIds, dates, now.minusMinutes(5))
+                .stream()
+                .map(e -> new DuplicateKey(e.getActionDefinitionId(), e.getQuantity(), e.getActivityDate()))
+                .collect(Collectors.toCollection(HashSet::new));
+
+        List<ScoringDtos.ActivityBatchItemResult> results = new ArrayList<>(items.size());
+        List<ActivityEntry> entries = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ScoringDtos.CreateActivityRequest item = items.get(i);
+            ScoringDtos.ActionDefinitionResponse action = actionCatalog.findActive(item.actionDefinitionId()).orElse(null);
+            if (action == null) {
+                results.add(ScoringDtos.ActivityBatchItemResult.rejected(i, "ACTION_NOT_FOUND", "Aktion nicht verfügbar"));
+                continue;
+            }
+            LocalDate activityDate = item.date() == null ? now.toLocalDate() : item.date();
+            if (!activityDateRange.contains(activityDate, now.toLocalDate())) {
+                results.add(ScoringDtos.ActivityBatchItemResult.rejected(i, "INVALID_ACTIVITY_DATE",
+                        activityDateRange.describe(now.toLocalDate())));
+                continue;
+            }
+            if (!seen.add(new DuplicateKey(action.actionDefinitionId(), item.quantity(), activityDate))) {
+                results.add(ScoringDtos.ActivityBatchItemResult.rejected(i, "DUPLICATE_ACTIVITY",
+                        "Duplikat innerhalb von 5 Minuten erkannt"));
+                continue;
+            }
+
+            ActivityEntry entry = new ActivityEntry();
+            entry.setActivityEntryId(UuidV7.generate());
+            entry.setEcoUserId(profile.ecoUserId());
+            entry.setActionDefinitionId(action.actionDefinitionId());
+            entry.setActionName(action.name());
+            entry.setCategory(action.category());
+            entry.setQuantity(item.quantity());
+            entry.setUnit(action.unit());
+            entry.setPoints((int) Math.round(item.quantity() * action.basePoints()));
+            entry.setTimestamp(now);
+            entry.setActivityDate(activityDate);
+            entry.setSource(APP);
+            entries.add(entry);
+            results.add(ScoringDtos.ActivityBatchItemResult.success(i, toActivityResponse(entry)));
+        }
+
+        if (!entries.isEmpty()) {
+            activityEntryBatchWriter.insertAll(entries);
+            int batchPoints = entries.stream().mapToInt(ActivityEntry::getPoints).sum();
+            int totalPoints = ledgerRepository.addPoints(profile.ecoUserId(), batchPoints);
+            recorded(entries.stream().map(ActivityRecorded::of).toList());
+            afterCommit(() -> pointsChanged(profile, totalPoints));
+        }
 
-        return toActivityResponse(saved);
+        return new ScoringDtos.ActivityBatchResponse(entries.size(), items.size() - entries.size(), results);
     }
 
+    @Transactional(readOnly = true)
     public ScoringDtos.ActivityPageResponse getMyActivities(CurrentUser currentUser, int page, int size, Category category) {
-        EcoUserProfile profile = profileService.getByUserId(currentUser.userId());
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
         PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100));
         Page<ActivityEntry> result = category == null
-                ? activityRepository.findByEcoUserIdOrderByTimestampDesc(profile.getEcoUserId(), pageable)
-                : activityRepository.findByEcoUserIdAndCategoryOrderByTimestampDesc(profile.getEcoUserId(), category, pageable);
+                ? activityRepository.findByEcoUserIdOrderByTimestampDesc(profile.ecoUserId(), pageable)
+                : activityRepository.findByEcoUserIdAndCategoryOrderByTimestampDesc(profile.ecoUserId(), category, pageable);
 
         return new ScoringDtos.ActivityPageResponse(
                 result.getContent().stream().map(this::toActivityResponse).toList(),
@@ -135,21 +344,94 @@ public class ScoringService {
         );
     }
 
+    /**
+     * Verlauf per Keyset-Pagination: ein Index-Seek pro Seite, kein {@code count(*)}.
+     * Es wird ein Eintrag mehr gelesen, um zu erkennen, ob es eine weitere Seite gibt.
+     */
+    @Transactional(readOnly = true)
+    public ScoringDtos.ActivityFeedResponse getMyActivityFeed(CurrentUser currentUser, String cursor, int size, Category category) {
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
+        int pageSize = Math.min(Math.max(size, 1), 100);
+        Limit limit = Limit.of(pageSize + 1);
+        ActivityFeedCursor after = cursor == null || cursor.isBlank() ? null : ActivityFeedCursor.decode(cursor);
+
+        List<ActivityEntry> entries;
+        if (after == null) {
+            entries = category == null
+                    ? activityRepository.findFeed(profile.ecoUserId(), limit)
+                    : activityRepository.findFeedByCategory(profile.ecoUserId(), category, limit);
+        } else {
+            entries = category == null
+                    ? activityRepository.findFeedAfter(profile.ecoUserId(), after.timestamp(), after.activityEntryId(), limit)
+                    : activityRepository.findFeedByCategoryAfter(profile.ecoUserId(), category,
+                            after.timestamp(), after.activityEntryId(), limit);
+        }
+
+        boolean hasMore = entries.size() > pageSize;
+        List<ActivityEntry> page = hasMore ? entries.subList(0, pageSize) : entries;
+        String nextCursor = null;
+        if (hasMore) {
+            ActivityEntry last = page.get(page.size() - 1);
+            nextCursor = new ActivityFeedCursor(last.getTimestamp(), last.getActivityEntryId()).encode();
+        }
+        return new ScoringDtos.ActivityFeedResponse(page.stream().map(this::toActivityResponse).toList(), nextCursor);
+    }
+
+    @Transactional(readOnly = true)
     public ScoringDtos.PointsLedgerResponse getMyPoints(CurrentUser currentUser) {
-        EcoUserProfile profile = profileService.getByUserId(currentUser.userId());
-        PointsLedger ledger = ledgerRepository.findById(profile.getEcoUserId()).orElseGet(() -> {
+        EcoUserProfileSnapshot profile = profileService.getByUserId(currentUser.userId());
+        PointsLedger ledger = ledgerRepository.findById(profile.ecoUserId()).orElseGet(() -> {
             PointsLedger l = new PointsLedger();
-            l.setEcoUserId(profile.getEcoUserId());
+            l.setEcoUserId(profile.ecoUserId());
             l.setTotalPoints(0);
             return l;
         });
         return new ScoringDtos.PointsLedgerResponse(ledger.getEcoUserId(), ledger.getTotalPoints(), ledger.getLastUpdated());
     }
 
+    @Transactional(readOnly = true)
     public ScoringDtos.ProgressSnapshotResponse getMyProgress(CurrentUser currentUser) {
         ScoringDtos.PointsLedgerResponse points = getMyPoints(currentUser);
-        int totalPoints = points.totalPoints();
+        return toProgress(points.ecoUserId(), points.totalPoints());
+    }
+
+    /**
+     * Live-Stream des eigenen Fortschritts: zuerst der aktuelle Stand, danach ein Event pro Änderung
+     * (mehrere Buchungen kurz hintereinander werden zusammengefasst).
+     */
+    public SseEmitter streamMyProgress(CurrentUser currentUser) {
+        EcoUserProfileSnapshot me = profileService.getByUserId(currentUser.userId());
+        SseEmitter emitter = liveUpdateHub.subscribeProgress(me.ecoUserId());
+        liveUpdateHub.sendInitial(emitter, LiveUpdateHub.PROGRESS_EVENT, getMyProgress(currentUser));
+        return emitter;
+    }
+
+    /**
+     * Live-Stream der Klassenrangliste: zuerst das aktuelle Fenster, danach nur die geänderten Einträge.
+     */
+    public SseEmitter streamClassLeaderboard(CurrentUser currentUser) {
+        EcoUserProfileSnapshot me = profileService.getByUserId(currentUser.userId());
+        if (me.classId() == null) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "CLASS_REQUIRED", "Nutzer ist keiner Klasse zugeordnet");
+        }
+        SseEmitter emitter = liveUpdateHub.subscribeClass(me.classId());
+        liveUpdateHub.sendInitial(emitter, LiveUpdateHub.LEADERBOARD_EVENT,
+                buildLeaderboardWindow("CLASS", leaderboardIndex.classBoard(me), me.ecoUserId(), 100, 2));
+        return emitter;
+    }
+
+    public SseEmitter streamSchoolLeaderboard(CurrentUser currentUser) {
+        EcoUserProfileSnapshot me = profileService.getByUserId(currentUser.userId());
+        if (me.schoolId() == null) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "SCHOOL_REQUIRED", "Nutzer ist keiner Schule zugeordnet");
+        }
+        SseEmitter emitter = liveUpdateHub.subscribeSchool(me.schoolId());
+        liveUpdateHub.sendInitial(emitter, LiveUpdateHub.LEADERBOARD_EVENT,
+                buildLeaderboardWindow("SCHOOL", leaderboardIndex.schoolBoard(me), me.ecoUserId(), 100, 2));
+        return emitter;
+    }
 
+    private ScoringDtos.ProgressSnapshotResponse toProgress(UUID ecoUserId, int totalPoints) {
         Level level = toLevel(totalPoints);
         int nextLevel = switch (level) {
             case SETZLING -> level1;
@@ -168,7 +450,7 @@ public class ScoringService {
         double progress = nextLevel == previousLevel ? 100d : Math.min(100d, ((double) (totalPoints - previousLevel) / (double) (nextLevel - previousLevel)) * 100d);
 
         return new ScoringDtos.ProgressSnapshotResponse(
-                points.ecoUserId(),
+                ecoUserId,
                 totalPoints,
                 level,
                 pointsToNext,
@@ -183,29 +465,47 @@ public class ScoringService {
         );
     }
 
+    @Transactional(readOnly = true)
     public ScoringDtos.RankingTableResponse getClassLeaderboard(CurrentUser currentUser, PeriodType period) {
-        EcoUserProfile me = profileService.getByUserId(currentUser.userId());
-        if (me.getClassId() == null) {
+        EcoUserProfileSnapshot me = profileService.getByUserId(currentUser.userId());
+        if (me.classId() == null) {
             throw new ApiException(HttpStatus.BAD_REQUEST, "CLASS_REQUIRED", "Nutzer ist keiner Klasse zugeordnet");
         }
-        List<EcoUserProfile> profiles = profileService.getByClassId(me.getClassId());
-        return buildLeaderboard("CLASS", period, profiles, me.getEcoUserId());
+        List<EcoUserProfile> profiles = profileService.getByClassId(me.classId());
+        return buildLeaderboard("CLASS", period, profiles, me.ecoUserId());
     }
 
+    @Transactional(readOnly = true)
     public ScoringDtos.RankingTableResponse getSchoolLeaderboard(CurrentUser currentUser, PeriodType period) {
-        EcoUserProfile me = profileService.getByUserId(currentUser.userId());
-        if (me.getSchoolId() == null) {
+        EcoUserProfileSnapshot me = profileService.getByUserId(currentUser.userId());
+        if (me.schoolId() == null) {
             throw new ApiException(HttpStatus.BAD_REQUEST, "SCHOOL_REQUIRED", "Nutzer ist keiner Schule zugeordnet");
         }
-        List<EcoUserProfile> profiles = profileService.getBySchoolId(me.getSchoolId());
-        return buildLeaderboard("SCHOOL", period, profiles, me.getEcoUserId());
+        List<EcoUserProfile> profiles = profileService.getBySchoolId(me.schoolId());
+        return buildLeaderboard("SCHOOL", period, profiles, me.ecoUserId());
     }
 
+    @Transactional(readOnly = true)
+    public ScoringDtos.LeaderboardWindowResponse getClassLeaderboardWindow(CurrentUser currentUser, int top, int radius) {
+        EcoUserProfileSnapshot me = profileService.getByUserId(currentUser.userId());
+        if (me.classId() == null) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "CLASS_REQUIRED", "Nutzer ist keiner Klasse zugeordnet");
+        }
+        return buildLeaderboardWindow("CLASS", leaderboardIndex.classBoard(me), me.ecoUserId(), top, radius);
+    }
+
+    @Transactional(readOnly = true)
+    public ScoringDtos.LeaderboardWindowResponse getSchoolLeaderboardWindow(CurrentUser currentUser, int top, int radius) {
+        EcoUserProfileSnapshot me = profileService.getByUserId(currentUser.userId());
+        if (me.schoolId() == null) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "SCHOOL_REQUIRED", "Nutzer ist keiner Schule zugeordnet");
+        }
+        return buildLeaderboardWindow("SCHOOL", leaderboardIndex.schoolBoard(me), me.ecoUserId(), top, radius);
+    }
+
+    @Transactional(readOnly = true)
     public int getUserPointsInRange(UUID ecoUserId, LocalDate startDate, LocalDate endDate) {
-        return activityRepository.findByEcoUserIdInAndActivityDateBetween(List.of(ecoUserId), startDate, endDate)
-                .stream()
-                .mapToInt(ActivityEntry::getPoints)
-                .sum();
+        return (int) activityRepository.sumPointsByEcoUserIdInAndActivityDateBetween(List.of(ecoUserId), startDate, endDate);
     }
 
     private ScoringDtos.RankingTableResponse buildLeaderboard(String scope,
@@ -219,12 +519,12 @@ public class ScoringService {
             pointsByUser = ledgerRepository.findByEcoUserIdIn(ids).stream()
                     .collect(Collectors.toMap(PointsLedger::getEcoUserId, PointsLedger::getTotalPoints));
         } else {
-            OffsetDateTime since = period == PeriodType.WEEK
-                    ? OffsetDateTime.now().minus(7, ChronoUnit.DAYS)
-                    : OffsetDateTime.now().minus(30, ChronoUnit.DAYS);
-            pointsByUser = activityRepository.findByEcoUserIdInAndTimestampAfter(ids, since)
-                    .stream()
-                    .collect(Collectors.groupingBy(ActivityEntry::getEcoUserId, Collectors.summingInt(ActivityEntry::getPoints)));
+            // Inklusive heute: WEEK sind die letzten 7, MONTH die letzten 30 Kalendertage.
+            LocalDate since = period == PeriodType.WEEK
+                    ? LocalDate.now().minusDays(6)
+                    : LocalDate.now().minusDays(29);
+            pointsByUser = dailyPointsRepository.sumPointsSince(ids, since).stream()
+                    .collect(Collectors.toMap(UserPointsTotal::getEcoUserId, total -> (int) total.getPoints()));
         }
 
         List<RowTmp> sorted = new ArrayList<>();
@@ -256,6 +556,61 @@ public class ScoringService {
         return new ScoringDtos.RankingTableResponse(scope, period == null ? PeriodType.TOTAL : period, OffsetDateTime.now(), rows);
     }
 
+    private ScoringDtos.LeaderboardWindowResponse buildLeaderboardWindow(String scope,
+                                                                         RankedBoard board,
+                                                                         UUID currentEcoUserId,
+                                                                         int top,
+                                                                         int radius) {
+        int limit = Math.min(Math.max(top, 0), 100);
+        int window = Math.min(Math.max(radius, 0), 50);
+        return new ScoringDtos.LeaderboardWindowResponse(
+                scope,
+                OffsetDateTime.now(),
+                board.size(),
+                board.top(limit).stream().map(row -> toRankingRow(row, currentEcoUserId)).toList(),
+                board.around(currentEcoUserId, window).stream().map(row -> toRankingRow(row, currentEcoUserId)).toList()
+        );
+    }
+
+    private ScoringDtos.RankingRowResponse toRankingRow(RankedBoard.RankedEntry row, UUID currentEcoUserId) {
+        return new ScoringDtos.RankingRowResponse(
+                row.rank(),
+                row.entry().ecoUserId(),
+                row.entry().displayName(),
+                row.entry().points(),
+                toLevel(row.entry().points()),
+                row.entry().ecoUserId().equals(currentEcoUserId)
+        );
+    }
+
+    /**
+     * Der Gesamtpunktestand wird weiterhin synchron gebucht (Antwort, Rangliste und Live-Updates
+     * brauchen ihn sofort); alle weiteren Projektionen laufen über die Events.
+     */
+    private void recorded(List<ActivityRecorded> events) {
+        eventRepository.append(events);
+        archiveJob.invalidateRollups(events);
+        afterCommit(() -> eventDispatcher.publish(events));
+    }
+
+    private void pointsChanged(EcoUserProfileSnapshot profile, int totalPoints) {
+        leaderboardIndex.record(profile, totalPoints);
+        liveUpdateHub.publish(profile, toProgress(profile.ecoUserId(), totalPoints));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private ScoringDtos.ActionDefinitionResponse toActionResponse(ActionDefinition action) {
         return new ScoringDtos.ActionDefinitionResponse(
                 action.getActionDefinitionId(),
@@ -295,6 +650,9 @@ public class ScoringService {
         return Level.SETZLING;
     }
 
+    private record DuplicateKey(UUID actionDefinitionId, double quantity, LocalDate activityDate) {
+    }
+
     private record RowTmp(EcoUserProfile profile, int points) {
     }
 }
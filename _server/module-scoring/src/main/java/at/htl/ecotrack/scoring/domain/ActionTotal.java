@@ -0,0 +1,17 @@
+package at.htl.ecotrack.scoring.domain;
+
+import java.util.UUID;
+
+/**
+ * Projektion für aggregierte Aktivitäten pro Aktion.
+ */
+public interface ActionTotal {
+
+    UUID getActionDefinitionId();
+
+    String getActionName();
+
+    long getActivityCount();
+
+    long getPoints();
+}
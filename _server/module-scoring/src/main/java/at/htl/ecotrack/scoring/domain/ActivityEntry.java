@@ -8,8 +8,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -17,8 +21,12 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "activity_entries")
-public class ActivityEntry {
+public class ActivityEntry implements Persistable<UUID> {
 
+    /**
+     * Auf PostgreSQL ist der Primärschlüssel {@code (activity_entry_id, activity_date)} (Partitionierung);
+     * die Eindeutigkeit der ID allein stellt die Vergabe als UUIDv7 sicher.
+     */
     @Id
     @Column(name = "activity_entry_id", nullable = false)
     private UUID activityEntryId;
@@ -56,6 +64,11 @@ public class ActivityEntry {
     @Column(name = "source", nullable = false)
     private ActivitySource source;
 
+    // Die ID wird in Java vergeben; ohne dieses Flag hält Spring Data die Entity für bestehend
+    // und setzt vor jedem INSERT per merge ein SELECT ab.
+    @Transient
+    private boolean newEntity = true;
+
     @PrePersist
     void onCreate() {
         if (timestamp == null) {
@@ -63,6 +76,22 @@ public class ActivityEntry {
         }
     }
 
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public UUID getId() {
+        return activityEntryId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
     public UUID getActivityEntryId() {
         return activityEntryId;
     }
@@ -0,0 +1,45 @@
+package at.htl.ecotrack.scoring.domain;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Schreibt viele {@link ActivityEntry}s per JDBC-Batch, ohne den Persistence-Context
+ * zu belasten. Timestamps müssen bereits gesetzt sein.
+ */
+@Repository
+public class ActivityEntryBatchWriter {
+
+    private static final String INSERT = """
+            insert into activity_entries(activity_entry_id, eco_user_id, action_definition_id, action_name,
+                                         category, quantity, unit, points, timestamp, activity_date, source)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ActivityEntryBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<ActivityEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (ps, entry) -> {
+            ps.setObject(1, entry.getActivityEntryId());
+            ps.setObject(2, entry.getEcoUserId());
+            ps.setObject(3, entry.getActionDefinitionId());
+            ps.setString(4, entry.getActionName());
+            ps.setString(5, entry.getCategory().name());
+            ps.setDouble(6, entry.getQuantity());
+            ps.setString(7, entry.getUnit().name());
+            ps.setInt(8, entry.getPoints());
+            ps.setObject(9, entry.getTimestamp());
+            ps.setObject(10, entry.getActivityDate());
+            ps.setString(11, entry.getSource().name());
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package at.htl.ecotrack.scoring.domain;
+
+import at.htl.ecotrack.shared.export.ExportWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Liest Aktivitäten über einen vorwärtsgerichteten JDBC-Cursor und schreibt jede Zeile sofort
+ * in den Export. Es werden weder Entities noch Listen aufgebaut.
+ *
+ * <p>
+ * Die Abfragen laufen in einer Read-only-Transaktion, weil PostgreSQL die Fetch-Size nur
+ * ohne Autocommit beachtet und sonst das gesamte Ergebnis in den Speicher lädt.
+ */
+@Repository
+public class ActivityEntryExportReader {
+
+    public static final List<String> ACTIVITY_COLUMNS = List.of(
+            "activityEntryId", "activityDate", "timestamp", "actionName", "category",
+            "quantity", "unit", "points", "source");
+
+    public static final List<String> CLASS_COLUMNS = List.of(
+            "email", "displayName", "activityEntryId", "activityDate", "timestamp", "actionName", "category",
+            "quantity", "unit", "points", "source");
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String BY_ECO_USER = """
+            select activity_entry_id, activity_date, timestamp, action_name, category,
+                   quantity, unit, points, source
+            from activity_entries
+            where eco_user_id = ?
+            order by timestamp desc
+            """;
+
+    private static final String BY_CLASS = """
+            select p.email, p.display_name, a.activity_entry_id, a.activity_date, a.timestamp, a.action_name,
+                   a.category, a.quantity, a.unit, a.points, a.source
+            from activity_entries a
+            join eco_user_profiles p on p.eco_user_id = a.eco_user_id
+            where p.class_id = ?
+            order by p.email, a.timestamp desc
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ActivityEntryExportReader(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Exportiert den Verlauf eines EcoUsers, neueste Einträge zuerst ({@link #ACTIVITY_COLUMNS}).
+     */
+    public void exportByEcoUserId(UUID ecoUserId, ExportWriter writer) {
+        stream(BY_ECO_USER, rs -> writer.row(
+                rs.getObject("activity_entry_id", UUID.class),
+                rs.getObject("activity_date", LocalDate.class),
+                rs.getObject("timestamp", OffsetDateTime.class),
+                rs.getString("action_name"),
+                rs.getString("category"),
+                rs.getDouble("quantity"),
+                rs.getString("unit"),
+                rs.getInt("points"),
+                rs.getString("source")), ecoUserId);
+    }
+
+    /**
+     * Exportiert die Aktivitäten aller Schüler einer Klasse ({@link #CLASS_COLUMNS}).
+     */
+    public void exportByClassId(UUID classId, ExportWriter writer) {
+        stream(BY_CLASS, rs -> writer.row(
+                rs.getString("email"),
+                rs.getString("display_name"),
+                rs.getObject("activity_entry_id", UUID.class),
+                rs.getObject("activity_date", LocalDate.class),
+                rs.getObject("timestamp", OffsetDateTime.class),
+                rs.getString("action_name"),
+                rs.getString("category"),
+                rs.getDouble("quantity"),
+                rs.getString("unit"),
+                rs.getInt("points"),
+                rs.getString("source")), classId);
+    }
+
+    private void stream(String sql, RowWriter rowWriter, Object... args) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(sql, (RowCallbackHandler) rowWriter::write, args));
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException;
+    }
+}
@@ -1,12 +1,16 @@
 package at.htl.ecotrack.scoring.domain;
 
 import at.htl.ecotrack.shared.model.Category;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,13 +18,102 @@ import java.util.UUID;
 public interface ActivityEntryRepository extends JpaRepository<ActivityEntry, UUID> {
     Page<ActivityEntry> findByEcoUserIdOrderByTimestampDesc(UUID ecoUserId, Pageable pageable);
     Page<ActivityEntry> findByEcoUserIdAndCategoryOrderByTimestampDesc(UUID ecoUserId, Category category, Pageable pageable);
+
+    // Keyset-Pagination für den Verlauf: sucht direkt im Index (eco_user_id, timestamp desc, activity_entry_id desc)
+    // statt Seiten zu überspringen, und ohne Count-Query.
+
+    @Query("""
+            select a from ActivityEntry a
+            where a.ecoUserId = :ecoUserId
+            order by a.timestamp desc, a.activityEntryId desc
+            """)
+    List<ActivityEntry> findFeed(@Param("ecoUserId") UUID ecoUserId, Limit limit);
+
+    @Query("""
+            select a from ActivityEntry a
+            where a.ecoUserId = :ecoUserId
+              and (a.timestamp, a.activityEntryId) < (:timestamp, :activityEntryId)
+            order by a.timestamp desc, a.activityEntryId desc
+            """)
+    List<ActivityEntry> findFeedAfter(@Param("ecoUserId") UUID ecoUserId,
+                                      @Param("timestamp") OffsetDateTime timestamp,
+                                      @Param("activityEntryId") UUID activityEntryId,
+                                      Limit limit);
+
+    @Query("""
+            select a from ActivityEntry a
+            where a.ecoUserId = :ecoUserId and a.category = :category
+            order by a.timestamp desc, a.activityEntryId desc
+            """)
+    List<ActivityEntry> findFeedByCategory(@Param("ecoUserId") UUID ecoUserId,
+                                           @Param("category") Category category,
+                                           Limit limit);
+
+    @Query("""
+            select a from ActivityEntry a
+            where a.ecoUserId = :ecoUserId and a.category = :category
+              and (a.timestamp, a.activityEntryId) < (:timestamp, :activityEntryId)
+            order by a.timestamp desc, a.activityEntryId desc
+            """)
+    List<ActivityEntry> findFeedByCategoryAfter(@Param("ecoUserId") UUID ecoUserId,
+                                                @Param("category") Category category,
+                                                @Param("timestamp") OffsetDateTime timestamp,
+                                                @Param("activityEntryId") UUID activityEntryId,
+                                                Limit limit);
+
     Optional<ActivityEntry> findTopByEcoUserIdAndActionDefinitionIdAndQuantityAndActivityDateOrderByTimestampDesc(
             UUID ecoUserId,
             UUID actionDefinitionId,
             double quantity,
             LocalDate activityDate
     );
-    List<ActivityEntry> findByEcoUserIdInAndTimestampAfter(List<UUID> ecoUserIds, OffsetDateTime after);
+    List<ActivityEntry> findByEcoUserIdAndActionDefinitionIdInAndActivityDateInAndTimestampAfter(
+            UUID ecoUserId,
+            Collection<UUID> actionDefinitionIds,
+            Collection<LocalDate> activityDates,
+            OffsetDateTime timestamp
+    );
     List<ActivityEntry> findByEcoUserIdIn(List<UUID> ecoUserIds);
-    List<ActivityEntry> findByEcoUserIdInAndActivityDateBetween(List<UUID> ecoUserIds, LocalDate startDate, LocalDate endDate);
+
+    long countByEcoUserIdInAndActivityDateBetween(List<UUID> ecoUserIds, LocalDate startDate, LocalDate endDate);
+
+    @Query("""
+            select coalesce(sum(a.points), 0)
+            from ActivityEntry a
+            where a.ecoUserId in :ecoUserIds and a.activityDate between :startDate and :endDate
+            """)
+    long sumPointsByEcoUserIdInAndActivityDateBetween(@Param("ecoUserIds") List<UUID> ecoUserIds,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+
+    @Query("""
+            select a.ecoUserId as ecoUserId, sum(a.points) as points
+            from ActivityEntry a
+            where a.ecoUserId in :ecoUserIds and a.activityDate between :startDate and :endDate
+            group by a.ecoUserId
+            """)
+    List<UserPointsTotal> sumPointsByUser(@Param("ecoUserIds") List<UUID> ecoUserIds,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+
+    @Query("""
+            select a.actionDefinitionId as actionDefinitionId, max(a.actionName) as actionName,
+                   count(a) as activityCount, sum(a.points) as points
+            from ActivityEntry a
+            where a.ecoUserId in :ecoUserIds and a.activityDate between :startDate and :endDate
+            group by a.actionDefinitionId
+            """)
+    List<ActionTotal> sumPointsByAction(@Param("ecoUserIds") List<UUID> ecoUserIds,
+                                        @Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate);
+
+    @Query("""
+            select coalesce(sum(a.points), 0) as points, count(a) as activityCount,
+                   count(distinct a.ecoUserId) as activeUsers
+            from ActivityEntry a
+            where a.ecoUserId in :ecoUserIds and a.activityDate between :startDate and :endDate
+            """)
+    ActivityTotals summarize(@Param("ecoUserIds") List<UUID> ecoUserIds,
+                             @Param("startDate") LocalDate startDate,
+                             @Param("endDate") LocalDate endDate);
 }
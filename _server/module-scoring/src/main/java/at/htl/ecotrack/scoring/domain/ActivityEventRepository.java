@@ -0,0 +1,123 @@
+package at.htl.ecotrack.scoring.domain;
+
+import at.htl.ecotrack.shared.model.Category;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outbox-Tabelle {@code activity_events}.
+ */
+@Repository
+public class ActivityEventRepository {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final RowMapper<ActivityRecorded> ROW_MAPPER = (rs, rowNum) -> new ActivityRecorded(
+            rs.getObject("activity_entry_id", UUID.class),
+            rs.getObject("eco_user_id", UUID.class),
+            rs.getObject("action_definition_id", UUID.class),
+            Category.valueOf(rs.getString("category")),
+            rs.getInt("points"),
+            rs.getObject("activity_date", LocalDate.class),
+            rs.getObject("occurred_at", OffsetDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ActivityEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(List<ActivityRecorded> events) {
+        jdbcTemplate.batchUpdate("""
+                        insert into activity_events(activity_entry_id, eco_user_id, action_definition_id, category,
+                                                    points, activity_date, occurred_at)
+                        values (?, ?, ?, ?, ?, ?, ?)
+                        """, events, events.size(),
+                (ps, event) -> {
+                    ps.setObject(1, event.activityEntryId());
+                    ps.setObject(2, event.ecoUserId());
+                    ps.setObject(3, event.actionDefinitionId());
+                    ps.setString(4, event.category().name());
+                    ps.setInt(5, event.points());
+                    ps.setObject(6, event.activityDate());
+                    ps.setObject(7, event.occurredAt());
+                });
+    }
+
+    /**
+     * Markiert Events als verarbeitet und liefert nur die, die noch offen waren. Läuft eine zweite
+     * Transaktion auf dieselben Events, wartet sie auf die erste und bekommt diese dann nicht mehr.
+     * Muss in der Transaktion der Projektionen laufen.
+     */
+    public List<ActivityRecorded> claim(List<ActivityRecorded> events, OffsetDateTime processedAt) {
+        // Feste Reihenfolge der Zeilensperren, damit Dispatcher und Sweeper sich nicht verklemmen.
+        List<ActivityRecorded> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparing(ActivityRecorded::activityEntryId));
+        int[][] counts = jdbcTemplate.batchUpdate("""
+                        update activity_events set processed_at = ?
+                        where activity_entry_id = ? and processed_at is null
+                        """, sorted, sorted.size(),
+                (ps, event) -> {
+                    ps.setObject(1, processedAt);
+                    ps.setObject(2, event.activityEntryId());
+                });
+        List<ActivityRecorded> claimed = new ArrayList<>(sorted.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    claimed.add(sorted.get(index));
+                }
+                index++;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Zählt einen gescheiterten Zustellversuch. Ab {@code maxAttempts} wird das Event geparkt und von
+     * {@link #findPending} nicht mehr geliefert.
+     *
+     * @return {@code true}, wenn das Event jetzt geparkt ist
+     */
+    public boolean recordFailure(UUID activityEntryId, String error, int maxAttempts, OffsetDateTime failedAt) {
+        jdbcTemplate.update("""
+                update activity_events
+                set attempts = attempts + 1, last_error = ?,
+                    failed_at = case when attempts + 1 >= ? then ? else failed_at end
+                where activity_entry_id = ? and processed_at is null
+                """, truncate(error), maxAttempts, failedAt, activityEntryId);
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select count(*) > 0 from activity_events where activity_entry_id = ? and failed_at is not null",
+                Boolean.class, activityEntryId));
+    }
+
+    public List<ActivityRecorded> findPending(OffsetDateTime occurredBefore, int limit) {
+        return jdbcTemplate.query("""
+                select activity_entry_id, eco_user_id, action_definition_id, category, points, activity_date, occurred_at
+                from activity_events
+                where processed_at is null and failed_at is null and occurred_at < ?
+                order by occurred_at
+                fetch first ? rows only
+                """, ROW_MAPPER, occurredBefore, limit);
+    }
+
+    public int deleteProcessedBefore(OffsetDateTime processedBefore) {
+        return jdbcTemplate.update("delete from activity_events where processed_at < ?", processedBefore);
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
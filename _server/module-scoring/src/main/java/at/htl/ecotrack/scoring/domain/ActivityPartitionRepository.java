@@ -0,0 +1,44 @@
+package at.htl.ecotrack.scoring.domain;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Pflege der Monatspartitionen von {@code activity_entries}. Nur auf PostgreSQL vorhanden
+ * (siehe {@code db/vendor/postgresql/V7__partition_activity_entries.sql}).
+ */
+@Repository
+public class ActivityPartitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean supported;
+
+    public ActivityPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isSupported() {
+        Boolean result = supported;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            supported = result;
+        }
+        return result;
+    }
+
+    /**
+     * Legt fehlende Monatspartitionen an.
+     *
+     * @return Anzahl neu angelegter Partitionen
+     */
+    public int ensurePartitions(LocalDate from, LocalDate to) {
+        Integer created = jdbcTemplate.queryForObject(
+                "select ecotrack_ensure_activity_partitions(?, ?)", Integer.class, from, to);
+        return created == null ? 0 : created;
+    }
+}
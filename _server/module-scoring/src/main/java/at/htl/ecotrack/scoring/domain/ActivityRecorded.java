@@ -0,0 +1,25 @@
+package at.htl.ecotrack.scoring.domain;
+
+import at.htl.ecotrack.shared.model.Category;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Domain-Event: eine Aktivität wurde gebucht. Wird mit der Aktivität in {@code activity_events}
+ * gespeichert und nach dem Commit an die Projektionen verteilt.
+ */
+public record ActivityRecorded(UUID activityEntryId,
+                               UUID ecoUserId,
+                               UUID actionDefinitionId,
+                               Category category,
+                               int points,
+                               LocalDate activityDate,
+                               OffsetDateTime occurredAt) {
+
+    public static ActivityRecorded of(ActivityEntry entry) {
+        return new ActivityRecorded(entry.getActivityEntryId(), entry.getEcoUserId(), entry.getActionDefinitionId(),
+                entry.getCategory(), entry.getPoints(), entry.getActivityDate(), entry.getTimestamp());
+    }
+}
@@ -0,0 +1,13 @@
+package at.htl.ecotrack.scoring.domain;
+
+/**
+ * Projektion für Gesamtsummen über einen Zeitraum.
+ */
+public interface ActivityTotals {
+
+    long getPoints();
+
+    long getActivityCount();
+
+    long getActiveUsers();
+}
@@ -0,0 +1,162 @@
+package at.htl.ecotrack.scoring.domain;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Zugriff auf {@code activity_year_summaries} (verdichtete Aktivitäten abgeschlossener Schuljahre)
+ * und die Verwaltungstabelle {@code activity_year_rollups}.
+ */
+@Repository
+public class ActivityYearSummaryRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ActivityYearSummaryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Zeitraum der verdichteten Schuljahre bis vor das erste veraltete Jahr, sofern vorhanden.
+     * Ab dem ersten veralteten Jahr muss live gelesen werden.
+     */
+    public Optional<ArchivedRange> findArchivedRange() {
+        return jdbcTemplate.query("""
+                        select min(r.school_year_start) as first_start, max(r.school_year_end) as last_end
+                        from activity_year_rollups r
+                        where not exists (
+                            select 1 from activity_year_rollups s
+                            where s.stale and s.school_year_start <= r.school_year_start
+                        )
+                        """, Map.of(), (rs, rowNum) -> {
+                    LocalDate first = rs.getObject("first_start", LocalDate.class);
+                    LocalDate last = rs.getObject("last_end", LocalDate.class);
+                    return first == null ? null : new ArchivedRange(first, last);
+                }).stream()
+                .filter(range -> range != null)
+                .findFirst();
+    }
+
+    /**
+     * Bereits verdichtete, nicht veraltete Schuljahre mit der Anzahl der Einträge zum Zeitpunkt der
+     * Verdichtung.
+     */
+    public Map<LocalDate, Long> findRollupEntryCounts() {
+        Map<LocalDate, Long> counts = new HashMap<>();
+        jdbcTemplate.query("select school_year_start, entry_count from activity_year_rollups where not stale", Map.of(),
+                rs -> {
+                    counts.put(rs.getObject("school_year_start", LocalDate.class), rs.getLong("entry_count"));
+                });
+        return counts;
+    }
+
+    /**
+     * Markiert verdichtete Schuljahre, die den Zeitraum {@code from} bis {@code to} berühren, als
+     * veraltet. Läuft in der Transaktion der Buchung.
+     */
+    public int markStale(LocalDate from, LocalDate to) {
+        return jdbcTemplate.update("""
+                        update activity_year_rollups set stale = true
+                        where school_year_start <= :to and school_year_end >= :from and not stale
+                        """,
+                new MapSqlParameterSource().addValue("from", from).addValue("to", to));
+    }
+
+    public Optional<LocalDate> findFirstActivityDate() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "select min(activity_date) from activity_entries", Map.of(), LocalDate.class));
+    }
+
+    public long countEntries(LocalDate start, LocalDate end) {
+        Long count = jdbcTemplate.queryForObject("""
+                        select count(*) from activity_entries
+                        where activity_date between :start and :end
+                        """,
+                new MapSqlParameterSource().addValue("start", start).addValue("end", end), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Verdichtet ein Schuljahr (neu). Muss in einer Transaktion laufen.
+     */
+    public void rollUp(LocalDate start, LocalDate end, long entryCount) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end)
+                .addValue("entryCount", entryCount);
+        jdbcTemplate.update("delete from activity_year_summaries where school_year_start = :start", params);
+        jdbcTemplate.update("""
+                insert into activity_year_summaries(school_year_start, eco_user_id, action_definition_id,
+                                                    action_name, category, activity_count, points, quantity)
+                select :start, eco_user_id, action_definition_id, max(action_name), max(category),
+                       count(*), sum(points), sum(quantity)
+                from activity_entries
+                where activity_date between :start and :end
+                group by eco_user_id, action_definition_id
+                """, params);
+        jdbcTemplate.update("delete from activity_year_rollups where school_year_start = :start", params);
+        jdbcTemplate.update("""
+                insert into activity_year_rollups(school_year_start, school_year_end, entry_count, rolled_up_at)
+                values (:start, :end, :entryCount, current_timestamp)
+                """, params);
+    }
+
+    public List<UserTotal> sumByUser(Collection<UUID> ecoUserIds, ArchivedRange range) {
+        return jdbcTemplate.query("""
+                        select eco_user_id, sum(activity_count) as activity_count, sum(points) as points
+                        from activity_year_summaries
+                        where eco_user_id in (:ids)
+                          and school_year_start between :firstStart and :lastEnd
+                        group by eco_user_id
+                        """, rangeParams(ecoUserIds, range),
+                (rs, rowNum) -> new UserTotal(
+                        rs.getObject("eco_user_id", UUID.class),
+                        rs.getLong("activity_count"),
+                        rs.getLong("points")));
+    }
+
+    public List<ActionYearTotal> sumByAction(Collection<UUID> ecoUserIds, ArchivedRange range) {
+        return jdbcTemplate.query("""
+                        select action_definition_id, max(action_name) as action_name,
+                               sum(activity_count) as activity_count, sum(points) as points
+                        from activity_year_summaries
+                        where eco_user_id in (:ids)
+                          and school_year_start between :firstStart and :lastEnd
+                        group by action_definition_id
+                        """, rangeParams(ecoUserIds, range),
+                (rs, rowNum) -> new ActionYearTotal(
+                        rs.getObject("action_definition_id", UUID.class),
+                        rs.getString("action_name"),
+                        rs.getLong("activity_count"),
+                        rs.getLong("points")));
+    }
+
+    private static MapSqlParameterSource rangeParams(Collection<UUID> ecoUserIds, ArchivedRange range) {
+        return new MapSqlParameterSource()
+                .addValue("ids", ecoUserIds)
+                .addValue("firstStart", range.firstStart())
+                .addValue("lastEnd", range.lastEnd());
+    }
+
+    /**
+     * @param firstStart Beginn des ersten verdichteten Schuljahres
+     * @param lastEnd    letzter Tag des letzten verdichteten Schuljahres
+     */
+    public record ArchivedRange(LocalDate firstStart, LocalDate lastEnd) {
+    }
+
+    public record UserTotal(UUID ecoUserId, long activityCount, long points) {
+    }
+
+    public record ActionYearTotal(UUID actionDefinitionId, String actionName, long activityCount, long points) {
+    }
+}
@@ -0,0 +1,76 @@
+package at.htl.ecotrack.scoring.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Vorberechnete Tagessumme der Punkte eines EcoUsers.
+ * Wird von der {@code DailyPointsProjection} aus den Activity-Events fortgeschrieben,
+ * damit Wochen-/Monatsranglisten nicht über alle {@code activity_entries} summieren müssen.
+ */
+@Entity
+@Table(name = "daily_points")
+@IdClass(DailyPoints.Key.class)
+public class DailyPoints {
+
+    @Id
+    @Column(name = "eco_user_id", nullable = false)
+    private UUID ecoUserId;
+
+    @Id
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    @Column(name = "points", nullable = false)
+    private int points;
+
+    public UUID getEcoUserId() {
+        return ecoUserId;
+    }
+
+    public LocalDate getActivityDate() {
+        return activityDate;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public static class Key implements Serializable {
+
+        private UUID ecoUserId;
+        private LocalDate activityDate;
+
+        public Key() {
+        }
+
+        public Key(UUID ecoUserId, LocalDate activityDate) {
+            this.ecoUserId = ecoUserId;
+            this.activityDate = activityDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(ecoUserId, key.ecoUserId) && Objects.equals(activityDate, key.activityDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ecoUserId, activityDate);
+        }
+    }
+}
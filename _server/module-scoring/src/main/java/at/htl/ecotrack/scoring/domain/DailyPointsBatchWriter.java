@@ -0,0 +1,52 @@
+package at.htl.ecotrack.scoring.domain;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Addiert Punkte auf viele Tagessummen in {@code daily_points} mit zwei JDBC-Batches
+ * (Bucket anlegen, Bucket erhöhen) statt zwei Statements pro Bucket.
+ */
+@Repository
+public class DailyPointsBatchWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailyPointsBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param deltas je Bucket höchstens ein Eintrag, in stabiler Reihenfolge (Sperrreihenfolge)
+     */
+    public void addAll(List<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                        insert into daily_points(eco_user_id, activity_date, points)
+                        values (?, ?, 0)
+                        on conflict do nothing
+                        """, deltas, deltas.size(),
+                (ps, delta) -> {
+                    ps.setObject(1, delta.ecoUserId());
+                    ps.setObject(2, delta.activityDate());
+                });
+        jdbcTemplate.batchUpdate("""
+                        update daily_points set points = points + ?
+                        where eco_user_id = ? and activity_date = ?
+                        """, deltas, deltas.size(),
+                (ps, delta) -> {
+                    ps.setInt(1, delta.points());
+                    ps.setObject(2, delta.ecoUserId());
+                    ps.setObject(3, delta.activityDate());
+                });
+    }
+
+    public record Delta(UUID ecoUserId, LocalDate activityDate, int points) {
+    }
+}
@@ -0,0 +1,44 @@
+package at.htl.ecotrack.scoring.domain;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface DailyPointsRepository extends JpaRepository<DailyPoints, DailyPoints.Key> {
+
+    @Modifying
+    @Query(value = "delete from daily_points where eco_user_id in (:ecoUserIds)", nativeQuery = true)
+    void deleteByEcoUserIds(@Param("ecoUserIds") Collection<UUID> ecoUserIds);
+
+    @Modifying
+    @Query(value = """
+            insert into daily_points(eco_user_id, activity_date, points)
+            select a.eco_user_id, a.activity_date, sum(a.points)
+            from activity_entries a
+            where a.eco_user_id in (:ecoUserIds)
+            group by a.eco_user_id, a.activity_date
+            """, nativeQuery = true)
+    void insertFromActivities(@Param("ecoUserIds") Collection<UUID> ecoUserIds);
+
+    /**
+     * Baut die Tagessummen der angegebenen EcoUser aus {@code activity_entries} neu auf.
+     */
+    default void rebuild(Collection<UUID> ecoUserIds) {
+        deleteByEcoUserIds(ecoUserIds);
+        insertFromActivities(ecoUserIds);
+    }
+
+    @Query("""
+            select d.ecoUserId as ecoUserId, sum(d.points) as points
+            from DailyPoints d
+            where d.ecoUserId in :ecoUserIds and d.activityDate >= :since
+            group by d.ecoUserId
+            """)
+    List<UserPointsTotal> sumPointsSince(@Param("ecoUserIds") List<UUID> ecoUserIds, @Param("since") LocalDate since);
+}
@@ -0,0 +1,44 @@
+package at.htl.ecotrack.scoring.domain;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Idempotency-Keys für {@code POST /api/activities}. Der Primärschlüssel
+ * (eco_user_id, idempotency_key) garantiert, dass pro Schlüssel höchstens eine Aktivität entsteht.
+ */
+@Repository
+public class IdempotencyKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reserviert den Schlüssel für die angegebene Aktivität. Läuft eine zweite Transaktion mit
+     * demselben Schlüssel, wartet die Datenbank auf deren Abschluss.
+     *
+     * @return {@code true}, wenn der Schlüssel neu ist
+     */
+    public boolean reserve(UUID ecoUserId, String idempotencyKey, UUID activityEntryId) {
+        return jdbcTemplate.update("""
+                insert into activity_idempotency_keys(eco_user_id, idempotency_key, activity_entry_id, created_at)
+                values (?, ?, ?, current_timestamp)
+                on conflict do nothing
+                """, ecoUserId, idempotencyKey, activityEntryId) == 1;
+    }
+
+    public Optional<UUID> findActivityEntryId(UUID ecoUserId, String idempotencyKey) {
+        List<UUID> ids = jdbcTemplate.queryForList("""
+                select activity_entry_id from activity_idempotency_keys
+                where eco_user_id = ? and idempotency_key = ?
+                """, UUID.class, ecoUserId, idempotencyKey);
+        return ids.stream().findFirst();
+    }
+}
@@ -3,17 +3,21 @@ package at.htl.ecotrack.scoring.domain;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
+import org.springframework.data.domain.Persistable;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "points_ledgers")
-public class PointsLedger {
+public class PointsLedger implements Persistable<UUID> {
 
     @Id
     @Column(name = "eco_user_id", nullable = false)
@@ -29,12 +33,31 @@ public class PointsLedger {
     @Column(name = "version", nullable = false)
     private long version;
 
+    @Transient
+    private boolean newEntity = true;
+
     @PrePersist
     @PreUpdate
     void onWrite() {
         this.lastUpdated = OffsetDateTime.now();
     }
 
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public UUID getId() {
+        return ecoUserId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
     public UUID getEcoUserId() {
         return ecoUserId;
     }
@@ -1,10 +1,46 @@
 package at.htl.ecotrack.scoring.domain;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
 
 public interface PointsLedgerRepository extends JpaRepository<PointsLedger, UUID> {
     List<PointsLedger> findByEcoUserIdIn(List<UUID> ecoUserIds);
+
+    @Modifying
+    @Query(value = """
+            insert into points_ledgers(eco_user_id, total_points, last_updated, version)
+            values (:ecoUserId, 0, current_timestamp, 0)
+            on conflict do nothing
+            """, nativeQuery = true)
+    void ensureLedger(@Param("ecoUserId") UUID ecoUserId);
+
+    /**
+     * Erhöht den Punktestand direkt in der Datenbank. Die Zeilensperre des UPDATE
+     * serialisiert gleichzeitige Buchungen, ohne dass die Entity geladen wird.
+     */
+    @Modifying
+    @Query(value = """
+            update points_ledgers
+            set total_points = total_points + :points, last_updated = current_timestamp, version = version + 1
+            where eco_user_id = :ecoUserId
+            """, nativeQuery = true)
+    void incrementTotal(@Param("ecoUserId") UUID ecoUserId, @Param("points") int points);
+
+    @Query(value = "select total_points from points_ledgers where eco_user_id = :ecoUserId", nativeQuery = true)
+    int findTotalPoints(@Param("ecoUserId") UUID ecoUserId);
+
+    /**
+     * Bucht Punkte atomar und liefert den neuen Gesamtstand. Muss in einer Transaktion
+     * laufen, damit der gelesene Stand durch die Zeilensperre noch exakt ist.
+     */
+    default int addPoints(UUID ecoUserId, int points) {
+        ensureLedger(ecoUserId);
+        incrementTotal(ecoUserId, points);
+        return findTotalPoints(ecoUserId);
+    }
 }
@@ -0,0 +1,13 @@
+package at.htl.ecotrack.scoring.domain;
+
+import java.util.UUID;
+
+/**
+ * Projektion für aggregierte Punkte pro EcoUser.
+ */
+public interface UserPointsTotal {
+
+    UUID getEcoUserId();
+
+    long getPoints();
+}
@@ -0,0 +1,118 @@
+package at.htl.ecotrack.scoring.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.htl.ecotrack.userprofile.application.EcoUserProfileSnapshot;
+
+/**
+ * Unit Tests für {@link LiveUpdateHub}: Ein hängender Client hält die übrigen Verbindungen nicht auf
+ * und wird nach Ablauf der Sende-Zeitgrenze beendet.
+ */
+class LiveUpdateHubTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicBoolean stalledClosed = new AtomicBoolean();
+    private final Queue<Object> fastEvents = new ConcurrentLinkedQueue<>();
+
+    private final SseEmitter stalled = new SseEmitter() {
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Broken pipe");
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            stalledClosed.set(true);
+        }
+    };
+
+    private final SseEmitter fast = new SseEmitter() {
+        @Override
+        public void send(SseEventBuilder builder) {
+            fastEvents.add(builder);
+        }
+    };
+
+    private final Queue<SseEmitter> emitters = new ConcurrentLinkedQueue<>(List.of(stalled, fast));
+
+    private final LiveUpdateHub hub = new LiveUpdateHub(mock(LeaderboardIndex.class), new ObjectMapper(),
+            60_000, 2, Duration.ofMillis(200)) {
+        @Override
+        SseEmitter newEmitter() {
+            return emitters.remove();
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        hub.stop();
+    }
+
+    @Test
+    void should_deliverToOtherClients_and_closeStalledClient_when_sendHangs() throws InterruptedException {
+        // Arrange
+        EcoUserProfileSnapshot slowUser = student();
+        EcoUserProfileSnapshot fastUser = student();
+        hub.subscribeProgress(slowUser.ecoUserId());
+        hub.subscribeProgress(fastUser.ecoUserId());
+
+        // Act
+        hub.publish(slowUser, progress(slowUser, 10));
+        hub.publish(fastUser, progress(fastUser, 20));
+        hub.flush();
+
+        // Assert: der schnelle Client bekommt sein Event, während der langsame hängt
+        awaitTrue(() -> fastEvents.size() == 1);
+        assertThat(stalledClosed).isFalse();
+
+        // Nach Ablauf der Zeitgrenze beendet der nächste Flush die hängende Verbindung.
+        Thread.sleep(250);
+        hub.flush();
+        assertThat(stalledClosed).isTrue();
+        assertThat(hub.subscriberCount()).isEqualTo(1);
+
+        // Heartbeats gehen nur an Verbindungen ohne offene Events.
+        hub.heartbeat();
+        awaitTrue(() -> fastEvents.size() == 2);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static EcoUserProfileSnapshot student() {
+        return new EcoUserProfileSnapshot(UUID.randomUUID(), UUID.randomUUID(), "max@htl-leoben.at", "Max", "Tester",
+                "Max Tester", null, null, null, null);
+    }
+
+    private static ScoringDtos.ProgressSnapshotResponse progress(EcoUserProfileSnapshot profile, int points) {
+        return new ScoringDtos.ProgressSnapshotResponse(profile.ecoUserId(), points, null, 0, 0, List.of(), null);
+    }
+}
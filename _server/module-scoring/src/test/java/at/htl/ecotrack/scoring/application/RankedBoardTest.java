@@ -0,0 +1,73 @@
+package at.htl.ecotrack.scoring.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit Tests für {@link RankedBoard}.
+ *
+ * Vergleicht Top-N, Fenster und Ränge nach zufälligen Updates mit einer vollständig sortierten Liste.
+ */
+class RankedBoardTest {
+
+    @Test
+    void should_matchFullSort_when_entriesAreUpdatedRandomly() {
+        Random random = new Random(42);
+        RankedBoard board = new RankedBoard();
+        Map<UUID, RankedBoard.Entry> expected = new HashMap<>();
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            users.add(UUID.randomUUID());
+        }
+
+        for (int step = 0; step < 2_000; step++) {
+            UUID user = users.get(random.nextInt(users.size()));
+            RankedBoard.Entry entry = new RankedBoard.Entry(user, "User " + users.indexOf(user), random.nextInt(50));
+            board.put(entry);
+            expected.put(user, entry);
+        }
+
+        List<RankedBoard.Entry> sorted = expected.values().stream().sorted(RankedBoard.ORDER).toList();
+        assertThat(board.size()).isEqualTo(sorted.size());
+        assertThat(board.top(10)).extracting(RankedBoard.RankedEntry::entry).containsExactlyElementsOf(sorted.subList(0, 10));
+
+        int position = sorted.size() / 2;
+        UUID middle = sorted.get(position).ecoUserId();
+        assertThat(board.around(middle, 3)).extracting(RankedBoard.RankedEntry::entry)
+                .containsExactlyElementsOf(sorted.subList(position - 3, position + 4));
+
+        for (RankedBoard.RankedEntry row : board.top(sorted.size())) {
+            long above = sorted.stream().filter(e -> e.points() > row.entry().points()).count();
+            assertThat(row.rank()).isEqualTo(above + 1);
+        }
+    }
+
+    @Test
+    void should_shareRank_when_pointsAreEqual() {
+        RankedBoard board = new RankedBoard();
+        board.put(new RankedBoard.Entry(UUID.randomUUID(), "Anna", 30));
+        board.put(new RankedBoard.Entry(UUID.randomUUID(), "Ben", 30));
+        board.put(new RankedBoard.Entry(UUID.randomUUID(), "Clara", 10));
+
+        assertThat(board.top(3)).extracting(RankedBoard.RankedEntry::rank).containsExactly(1, 1, 3);
+    }
+
+    @Test
+    void should_keepHigherTotal_when_olderTotalArrivesLate() {
+        RankedBoard board = new RankedBoard();
+        UUID user = UUID.randomUUID();
+        board.putIfHigher(new RankedBoard.Entry(user, "Anna", 40));
+        board.putIfHigher(new RankedBoard.Entry(user, "Anna", 25));
+
+        assertThat(board.size()).isEqualTo(1);
+        assertThat(board.top(1)).extracting(row -> row.entry().points()).containsExactly(40);
+    }
+}
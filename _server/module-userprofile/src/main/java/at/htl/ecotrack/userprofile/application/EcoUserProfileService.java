@@ -1,35 +1,61 @@
 package at.htl.ecotrack.userprofile.application;
 
 import at.htl.ecotrack.shared.error.ApiException;
+import at.htl.ecotrack.shared.id.UuidV7;
 import at.htl.ecotrack.shared.model.Role;
 import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
 import at.htl.ecotrack.userprofile.domain.EcoUserProfileRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class EcoUserProfileService {
 
+    private static final String REQUEST_CACHE_ATTRIBUTE = EcoUserProfileService.class.getName() + ".byUserId";
+
     private final EcoUserProfileRepository repository;
 
-    public EcoUserProfileService(EcoUserProfileRepository repository) {
+    /**
+     * Prozessweiter LRU-Cache {@code userId -> Snapshot}. Profile werden nach dem
+     * Anlegen nicht mehr verändert, daher genügt Write-Through aus {@link #createProfile}.
+     */
+    private final Map<UUID, EcoUserProfileSnapshot> byUserId;
+
+    public EcoUserProfileService(EcoUserProfileRepository repository,
+                                 @Value("${ecotrack.profile-cache.max-size:1024}") int maxCacheSize) {
         this.repository = repository;
+        this.byUserId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, EcoUserProfileSnapshot> eldest) {
+                return size() > maxCacheSize;
+            }
+        };
     }
 
-    public EcoUserProfile createProfile(UUID userId,
-                                        String email,
-                                        String firstName,
-                                        String lastName,
-                                        Role role,
-                                        UUID classId,
-                                        String className,
-                                        UUID schoolId,
-                                        String schoolName) {
+    public EcoUserProfileSnapshot createProfile(UUID userId,
+                                                String email,
+                                                String firstName,
+                                                String lastName,
+                                                Role role,
+                                                UUID classId,
+                                                String className,
+                                                UUID schoolId,
+                                                String schoolName) {
         EcoUserProfile profile = new EcoUserProfile();
-        profile.setEcoUserId(UUID.randomUUID());
+        profile.setEcoUserId(UuidV7.generate());
         profile.setUserId(userId);
         profile.setEmail(email);
         profile.setFirstName(firstName);
@@ -39,24 +65,146 @@ public class EcoUserProfileService {
         profile.setClassName(role == Role.SCHUELER ? className : null);
         profile.setSchoolId(schoolId);
         profile.setSchoolName(schoolName);
-        return repository.save(profile);
+        EcoUserProfileSnapshot snapshot = EcoUserProfileSnapshot.of(repository.save(profile));
+        writeThrough(snapshot);
+        return snapshot;
     }
 
-    public EcoUserProfile getByEcoUserId(UUID ecoUserId) {
+    @Transactional(readOnly = true)
+    public EcoUserProfileSnapshot getByEcoUserId(UUID ecoUserId) {
         return repository.findById(ecoUserId)
+                .map(EcoUserProfileSnapshot::of)
                 .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "ECO_USER_NOT_FOUND", "EcoUser nicht gefunden"));
     }
 
-    public EcoUserProfile getByUserId(UUID userId) {
-        return repository.findByUserId(userId)
-                .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "ECO_USER_NOT_FOUND", "EcoUser nicht gefunden"));
+    /**
+     * Liefert das Profil zur Keycloak-User-ID. Innerhalb eines HTTP-Requests wird höchstens
+     * einmal nachgeschlagen, über Requests hinweg hilft der prozessweite LRU-Cache.
+     */
+    @Transactional(readOnly = true)
+    public EcoUserProfileSnapshot getByUserId(UUID userId) {
+        Map<UUID, EcoUserProfileSnapshot> requestCache = requestCache();
+        EcoUserProfileSnapshot snapshot = requestCache == null ? null : requestCache.get(userId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (byUserId) {
+            snapshot = byUserId.get(userId);
+        }
+        if (snapshot == null) {
+            snapshot = repository.findByUserId(userId)
+                    .map(EcoUserProfileSnapshot::of)
+                    .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "ECO_USER_NOT_FOUND", "EcoUser nicht gefunden"));
+            synchronized (byUserId) {
+                byUserId.put(userId, snapshot);
+            }
+        }
+        if (requestCache != null) {
+            requestCache.put(userId, snapshot);
+        }
+        return snapshot;
     }
 
+    @Transactional(readOnly = true)
     public List<EcoUserProfile> getByClassId(UUID classId) {
         return repository.findByClassId(classId);
     }
 
+    @Transactional(readOnly = true)
+    public long countByClassId(UUID classId) {
+        return repository.countByClassId(classId);
+    }
+
+    @Transactional(readOnly = true)
     public List<EcoUserProfile> getBySchoolId(UUID schoolId) {
         return repository.findBySchoolId(schoolId);
     }
+
+    /**
+     * Löst E-Mails (kleingeschrieben) in einem Query zu EcoUser-IDs auf, z.B. für Importe.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, UUID> getEcoUserIdsByEmail(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, UUID> result = new HashMap<>();
+        for (EcoUserProfile profile : repository.findByEmailIn(emails)) {
+            result.put(profile.getEmail().toLowerCase(), profile.getEcoUserId());
+        }
+        return result;
+    }
+
+    /**
+     * Klassen-IDs der angegebenen EcoUser in einem Query; EcoUser ohne Klasse fehlen in der Map.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, UUID> getClassIdsByEcoUserId(Collection<UUID> ecoUserIds) {
+        if (ecoUserIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, UUID> result = new HashMap<>();
+        for (EcoUserProfile profile : repository.findAllById(ecoUserIds)) {
+            if (profile.getClassId() != null) {
+                result.put(profile.getEcoUserId(), profile.getClassId());
+            }
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<EcoUserProfile> getAll() {
+        return repository.findAll();
+    }
+
+    /**
+     * Übernimmt ein neues Profil erst nach erfolgreichem Commit in den Cache, damit ein
+     * Rollback (z.B. Kompensation bei fehlgeschlagener Registrierung) nichts hinterlässt.
+     */
+    private void writeThrough(EcoUserProfileSnapshot snapshot) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache(snapshot);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    cache(snapshot);
+                } else {
+                    evict(snapshot.userId());
+                }
+            }
+        });
+    }
+
+    private void cache(EcoUserProfileSnapshot snapshot) {
+        synchronized (byUserId) {
+            byUserId.put(snapshot.userId(), snapshot);
+        }
+    }
+
+    private void evict(UUID userId) {
+        synchronized (byUserId) {
+            byUserId.remove(userId);
+        }
+        Map<UUID, EcoUserProfileSnapshot> requestCache = requestCache();
+        if (requestCache != null) {
+            requestCache.remove(userId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<UUID, EcoUserProfileSnapshot> requestCache() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object cache = attributes.getAttribute(REQUEST_CACHE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null) {
+            cache = new HashMap<UUID, EcoUserProfileSnapshot>();
+            attributes.setAttribute(REQUEST_CACHE_ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<UUID, EcoUserProfileSnapshot>) cache;
+    }
 }
@@ -0,0 +1,41 @@
+package at.htl.ecotrack.userprofile.application;
+
+import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
+
+import java.util.UUID;
+
+/**
+ * Unveränderliche Sicht auf ein {@link EcoUserProfile}.
+ *
+ * <p>
+ * Wird statt der Entity herausgegeben, damit gecachte Profile nicht über
+ * JPA-Dirty-Checking verändert werden können.
+ */
+public record EcoUserProfileSnapshot(
+        UUID ecoUserId,
+        UUID userId,
+        String email,
+        String firstName,
+        String lastName,
+        String displayName,
+        UUID classId,
+        String className,
+        UUID schoolId,
+        String schoolName
+) {
+
+    public static EcoUserProfileSnapshot of(EcoUserProfile profile) {
+        return new EcoUserProfileSnapshot(
+                profile.getEcoUserId(),
+                profile.getUserId(),
+                profile.getEmail(),
+                profile.getFirstName(),
+                profile.getLastName(),
+                profile.getDisplayName(),
+                profile.getClassId(),
+                profile.getClassName(),
+                profile.getSchoolId(),
+                profile.getSchoolName()
+        );
+    }
+}
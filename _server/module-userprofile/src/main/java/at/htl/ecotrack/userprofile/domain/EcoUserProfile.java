@@ -3,16 +3,20 @@ package at.htl.ecotrack.userprofile.domain;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "eco_user_profiles")
-public class EcoUserProfile {
+public class EcoUserProfile implements Persistable<UUID> {
 
     @Id
     @Column(name = "eco_user_id", nullable = false)
@@ -51,6 +55,10 @@ public class EcoUserProfile {
     @Column(name = "updated_at", nullable = false)
     private OffsetDateTime updatedAt;
 
+    // Neu angelegte Profile werden per persist gespeichert (kein SELECT vor dem INSERT).
+    @Transient
+    private boolean newEntity = true;
+
     @PrePersist
     void onCreate() {
         OffsetDateTime now = OffsetDateTime.now();
@@ -63,6 +71,22 @@ public class EcoUserProfile {
         this.updatedAt = OffsetDateTime.now();
     }
 
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public UUID getId() {
+        return ecoUserId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
     public UUID getEcoUserId() {
         return ecoUserId;
     }
@@ -2,6 +2,7 @@ package at.htl.ecotrack.userprofile.domain;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -9,6 +10,8 @@ import java.util.UUID;
 public interface EcoUserProfileRepository extends JpaRepository<EcoUserProfile, UUID> {
     Optional<EcoUserProfile> findByUserId(UUID userId);
     Optional<EcoUserProfile> findByEmail(String email);
+    List<EcoUserProfile> findByEmailIn(Collection<String> emails);
     List<EcoUserProfile> findByClassId(UUID classId);
+    long countByClassId(UUID classId);
     List<EcoUserProfile> findBySchoolId(UUID schoolId);
 }
@@ -0,0 +1,94 @@
+package at.htl.ecotrack.userprofile.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import at.htl.ecotrack.shared.model.Role;
+import at.htl.ecotrack.userprofile.domain.EcoUserProfile;
+import at.htl.ecotrack.userprofile.domain.EcoUserProfileRepository;
+
+/**
+ * Unit Tests für das Profil-Caching im {@link EcoUserProfileService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class EcoUserProfileServiceTest {
+
+    private static final UUID USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Mock
+    private EcoUserProfileRepository repository;
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void repeatedLookupsHitTheRepositoryOnce() {
+        EcoUserProfileService service = new EcoUserProfileService(repository, 16);
+        EcoUserProfile entity = profile();
+        when(repository.findByUserId(USER_ID)).thenReturn(Optional.of(entity));
+
+        EcoUserProfileSnapshot first = service.getByUserId(USER_ID);
+        EcoUserProfileSnapshot second = service.getByUserId(USER_ID);
+
+        assertThat(second).isSameAs(first);
+        verify(repository, times(1)).findByUserId(USER_ID);
+    }
+
+    @Test
+    void requestScopeDeduplicatesEvenWithoutProcessCache() {
+        EcoUserProfileService service = new EcoUserProfileService(repository, 0);
+        when(repository.findByUserId(USER_ID)).thenReturn(Optional.of(profile()));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        service.getByUserId(USER_ID);
+        service.getByUserId(USER_ID);
+        verify(repository, times(1)).findByUserId(USER_ID);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        service.getByUserId(USER_ID);
+        verify(repository, times(2)).findByUserId(USER_ID);
+    }
+
+    @Test
+    void createProfileWritesThroughAndSnapshotIsDetachedFromEntity() {
+        EcoUserProfileService service = new EcoUserProfileService(repository, 16);
+        when(repository.save(any(EcoUserProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        EcoUserProfileSnapshot created = service.createProfile(USER_ID, "anna@ecotrack.test", "Anna", "Muster",
+                Role.SCHUELER, null, null, null, null);
+        EcoUserProfileSnapshot cached = service.getByUserId(USER_ID);
+
+        assertThat(cached).isEqualTo(created);
+        assertThat(cached.displayName()).isEqualTo("Anna Muster");
+        verify(repository, never()).findByUserId(USER_ID);
+    }
+
+    private static EcoUserProfile profile() {
+        EcoUserProfile profile = new EcoUserProfile();
+        profile.setEcoUserId(UUID.randomUUID());
+        profile.setUserId(USER_ID);
+        profile.setEmail("anna@ecotrack.test");
+        profile.setFirstName("Anna");
+        profile.setLastName("Muster");
+        profile.setDisplayName("Anna Muster");
+        return profile;
+    }
+}
@@ -0,0 +1,146 @@
+package at.htl.ecotrack.shared.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Schreibt Export-Zeilen direkt in einen Ausgabestrom, ohne sie zu sammeln.
+ *
+ * <p>
+ * CSV erhält eine Kopfzeile mit den Spaltennamen, NDJSON ein JSON-Objekt pro Zeile.
+ * Fehler beim Schreiben (z. B. abgebrochener Download) werden als
+ * {@link UncheckedIOException} geworfen, damit der Aufrufer aus JDBC-Callbacks aussteigen kann.
+ */
+public final class ExportWriter {
+
+    private final ExportFormat format;
+    private final List<String> columns;
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    private ExportWriter(ExportFormat format, List<String> columns, OutputStream out) {
+        this.format = format;
+        this.columns = List.copyOf(columns);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    public static ExportWriter open(ExportFormat format, List<String> columns, OutputStream out) {
+        ExportWriter exportWriter = new ExportWriter(format, columns, out);
+        if (format == ExportFormat.CSV) {
+            exportWriter.writeCsv(columns.toArray());
+        }
+        return exportWriter;
+    }
+
+    /**
+     * Schreibt eine Zeile; die Werte müssen in der Reihenfolge der Spalten übergeben werden.
+     */
+    public void row(Object... values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Erwartet " + columns.size() + " Werte, erhalten " + values.length);
+        }
+        if (format == ExportFormat.CSV) {
+            writeCsv(values);
+        } else {
+            writeJson(values);
+        }
+    }
+
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeCsv(Object[] values) {
+        line.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendCsv(values[i]);
+        }
+        line.append("\r\n");
+        write();
+    }
+
+    private void appendCsv(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            line.append(value);
+            return;
+        }
+        String text = value.toString();
+        // Verhindert, dass Tabellenkalkulationen Benutzereingaben als Formel ausführen.
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            line.append('"').append(text.replace("\"", "\"\"")).append('"');
+        } else {
+            line.append(text);
+        }
+    }
+
+    private void writeJson(Object[] values) {
+        line.setLength(0);
+        line.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendJsonString(columns.get(i));
+            line.append(':');
+            Object value = values[i];
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                line.append(value);
+            } else {
+                appendJsonString(value.toString());
+            }
+        }
+        line.append("}\n");
+        write();
+    }
+
+    private void appendJsonString(String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private void write() {
+        try {
+            writer.append(line);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package at.htl.ecotrack.shared.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Erzeugt zeitlich sortierte UUIDs der Version 7 (RFC 9562) für Primärschlüssel.
+ *
+ * <p>
+ * Die oberen 48 Bit enthalten die Unix-Zeit in Millisekunden, die folgenden 12 Bit
+ * einen Zähler innerhalb der Millisekunde. Neue Zeilen landen dadurch am rechten Rand
+ * des B-Tree-Index statt an zufälligen Stellen. Zeitstempel und Zähler werden gemeinsam
+ * per CAS weitergezählt: die IDs eines Prozesses sind streng monoton, auch wenn mehr als
+ * 4096 IDs pro Millisekunde entstehen (der Zeitstempel läuft dann kurz vor) oder die Uhr
+ * zurückspringt. Die restlichen 62 Bit sind zufällig ({@link ThreadLocalRandom}, ohne
+ * gemeinsame Sperre wie bei {@link UUID#randomUUID()}).
+ */
+public final class UuidV7 {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    /** Zuletzt vergebener Wert aus {@code millis << 12 | zähler}. */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long previous;
+        long next;
+        do {
+            previous = LAST.get();
+            next = now > previous ? now : previous + 1;
+        } while (!LAST.compareAndSet(previous, next));
+
+        long timestamp = next >>> COUNTER_BITS;
+        long counter = next & ((1L << COUNTER_BITS) - 1);
+        long mostSigBits = (timestamp << 16) | VERSION | counter;
+        long leastSigBits = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Zeitstempel (Unix-Millisekunden) einer mit {@link #generate()} erzeugten UUID.
+     */
+    public static long timestampMillis(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Keine UUID der Version 7: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,60 @@
+package at.htl.ecotrack.shared.id;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Vergleicht {@link UuidV7#generate()} mit {@link UUID#randomUUID()} bei einem und bei
+ * vielen gleichzeitigen Threads. Kein Test; Start nach {@code mvn -pl shared-kernel test-compile}
+ * aus der IDE über {@link #main(String[])} oder mit {@code org.openjdk.jmh.Main UuidV7Benchmark}
+ * auf dem Test-Classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UuidV7Benchmark {
+
+    @Benchmark
+    @Threads(1)
+    public UUID uuidV7SingleThread() {
+        return UuidV7.generate();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public UUID randomUuidSingleThread() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public UUID uuidV7Contended() {
+        return UuidV7.generate();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public UUID randomUuidContended() {
+        return UUID.randomUUID();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UuidV7Benchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
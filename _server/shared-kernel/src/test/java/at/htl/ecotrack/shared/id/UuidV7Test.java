@@ -0,0 +1,89 @@
+package at.htl.ecotrack.shared.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class UuidV7Test {
+
+    @Test
+    void hasVersionVariantAndCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.generate();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        // Der Zeitstempel darf bei sehr vielen IDs pro Millisekunde leicht vorlaufen.
+        assertThat(UuidV7.timestampMillis(uuid)).isBetween(before, System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    void isStrictlyMonotonicInByteOrder() {
+        UUID previous = UuidV7.generate();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.generate();
+            // Datenbanken vergleichen UUIDs byteweise, also vorzeichenlos.
+            assertThat(compareUnsigned(next, previous)).isPositive();
+            previous = next;
+        }
+    }
+
+    @Test
+    void staysUniqueUnderContention() throws Exception {
+        int threads = 16;
+        int perThread = 20_000;
+        Set<UUID> all = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    Set<UUID> local = new HashSet<>();
+                    UUID previous = null;
+                    for (int i = 0; i < perThread; i++) {
+                        UUID next = UuidV7.generate();
+                        if (previous != null) {
+                            assertThat(compareUnsigned(next, previous)).isPositive();
+                        }
+                        local.add(next);
+                        previous = next;
+                    }
+                    all.addAll(local);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(all).hasSize(threads * perThread);
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        assertThatThrownBy(() -> UuidV7.timestampMillis(UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}